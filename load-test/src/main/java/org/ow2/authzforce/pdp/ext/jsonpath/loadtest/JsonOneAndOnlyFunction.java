@@ -0,0 +1,37 @@
+/*
+ * Copyright 2012-2024 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.loadtest;
+
+import org.ow2.authzforce.core.pdp.api.func.FirstOrderBagFunctions;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+/**
+ * XACML function {@code urn:ow2:authzforce:feature:pdp:function:json-one-and-only}, i.e. the standard one-and-only bag function applied to the JSON datatype, as generated by
+ * {@link FirstOrderBagFunctions#getFunctions(org.ow2.authzforce.core.pdp.api.value.AttributeDatatype)} for {@link JsonValue#DATATYPE}. The PDP engine does not register bag functions of extension
+ * datatypes, therefore this function is registered as PDP extension (service file), so that the policies can call the JSONPath functions on a single JSON value from an AttributeDesignator.
+ */
+public final class JsonOneAndOnlyFunction extends FirstOrderBagFunctions.SingletonBagToPrimitive<JsonValue>
+{
+	/**
+	 * Constructor
+	 */
+	public JsonOneAndOnlyFunction()
+	{
+		super(JsonValue.DATATYPE, JsonValue.DATATYPE.getBagDatatype());
+	}
+}
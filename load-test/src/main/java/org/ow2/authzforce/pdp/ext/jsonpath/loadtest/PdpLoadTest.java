@@ -0,0 +1,364 @@
+/*
+ * Copyright 2012-2024 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.loadtest;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.sun.management.ThreadMXBean;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.DecisionType;
+import org.ow2.authzforce.core.pdp.api.AttributeFqn;
+import org.ow2.authzforce.core.pdp.api.AttributeFqns;
+import org.ow2.authzforce.core.pdp.api.AttributeSources;
+import org.ow2.authzforce.core.pdp.api.DecisionRequestBuilder;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.impl.BasePdpEngine;
+import org.ow2.authzforce.core.pdp.impl.PdpEngineConfiguration;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+import org.ow2.authzforce.pdp.ext.jsonpath.loadtest.RequestGenerator.DocumentSize;
+import org.ow2.authzforce.pdp.ext.jsonpath.loadtest.RequestGenerator.RequestData;
+
+/**
+ * End-to-end load test of the JSONPath extensions embedded in an AuthzForce PDP engine (loaded as PDP extensions from the classpath, as in production): for each document size and number of
+ * threads, evaluates synthetic requests - including the parsing of the JSON attribute values - in closed loop for a given duration after a warm-up period, and reports throughput (decisions/sec),
+ * latency percentiles (p50/p99/p999), allocation rate and GC pauses. Runs offline, no network access required.
+ * <p>
+ * Usage (options are optional): {@code PdpLoadTest [-threads 1,2,4,8] [-sizes small,medium,large] [-warmup 10] [-duration 30] [-requests 1000]}, durations in seconds.
+ */
+public final class PdpLoadTest
+{
+	private static final String SUBJECT_CATEGORY = "urn:oasis:names:tc:xacml:1.0:subject-category:access-subject";
+	private static final String RESOURCE_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:resource";
+	private static final String ACTION_CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:action";
+
+	private static final AttributeFqn SUBJECT_PROFILE_ATTRIBUTE_FQN = AttributeFqns.newInstance(SUBJECT_CATEGORY, Optional.empty(), "urn:example:xacml:attribute:subject:profile");
+	private static final AttributeFqn RESOURCE_DOCUMENT_ATTRIBUTE_FQN = AttributeFqns.newInstance(RESOURCE_CATEGORY, Optional.empty(), "urn:example:xacml:attribute:resource:document");
+	private static final AttributeFqn ACTION_ID_ATTRIBUTE_FQN = AttributeFqns.newInstance(ACTION_CATEGORY, Optional.empty(), "urn:oasis:names:tc:xacml:1.0:action:action-id");
+
+	private static final long REQUEST_GENERATOR_SEED = 42;
+
+	/*
+	 * Max number of latency samples recorded per thread (one long each)
+	 */
+	private static final int MAX_LATENCY_SAMPLES_PER_THREAD = 10_000_000;
+
+	private PdpLoadTest()
+	{
+		// hide constructor
+	}
+
+	/**
+	 * Measurements of a test run
+	 */
+	private record RunResult(DocumentSize documentSize, int threadCount, long decisionCount, double durationSec, long[] sortedLatenciesNanos, Map<DecisionType, Long> decisionCounts,
+	        long allocatedBytes, long gcPauseCount, long gcTotalPauseMillis, long gcMaxPauseMillis)
+	{
+		private double latencyPercentileMicros(final double percentile)
+		{
+			if (sortedLatenciesNanos.length == 0)
+			{
+				return Double.NaN;
+			}
+
+			final int index = (int) Math.min(sortedLatenciesNanos.length - 1, Math.ceil(percentile / 100.0 * sortedLatenciesNanos.length) - 1);
+			return sortedLatenciesNanos[Math.max(0, index)] / 1000.0;
+		}
+
+		private String toReportLine()
+		{
+			return String.format(Locale.ROOT, "%-7s %7d %12.0f %10.1f %10.1f %10.1f %12.1f %8d %10d %10d   %s", documentSize, threadCount, decisionCount / durationSec, latencyPercentileMicros(50),
+			        latencyPercentileMicros(99), latencyPercentileMicros(99.9), allocatedBytes / durationSec / (1024 * 1024), gcPauseCount, gcTotalPauseMillis, gcMaxPauseMillis, decisionCounts);
+		}
+	}
+
+	/**
+	 * Collects GC pauses from GC notifications
+	 */
+	private static final class GcPauseRecorder implements NotificationListener
+	{
+		private final AtomicLong pauseCount = new AtomicLong();
+		private final AtomicLong totalPauseMillis = new AtomicLong();
+		private final AtomicLong maxPauseMillis = new AtomicLong();
+
+		private void register()
+		{
+			for (final GarbageCollectorMXBean gcBean : ManagementFactory.getGarbageCollectorMXBeans())
+			{
+				if (gcBean instanceof NotificationEmitter emitter)
+				{
+					emitter.addNotificationListener(this, null, null);
+				}
+			}
+		}
+
+		@Override
+		public void handleNotification(final javax.management.Notification notification, final Object handback)
+		{
+			if (!notification.getType().equals(GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION))
+			{
+				return;
+			}
+
+			final GarbageCollectionNotificationInfo info = GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+			// concurrent cycles (e.g. G1 Concurrent GC, ZGC cycles) do not stop application threads
+			if (info.getGcName().contains("Concurrent") || info.getGcName().contains("Cycles"))
+			{
+				return;
+			}
+
+			final long durationMillis = info.getGcInfo().getDuration();
+			pauseCount.incrementAndGet();
+			totalPauseMillis.addAndGet(durationMillis);
+			maxPauseMillis.accumulateAndGet(durationMillis, Math::max);
+		}
+
+		private void reset()
+		{
+			pauseCount.set(0);
+			totalPauseMillis.set(0);
+			maxPauseMillis.set(0);
+		}
+	}
+
+	/**
+	 * Per-thread measurements
+	 */
+	private static final class LatencyRecorder
+	{
+		private long[] latenciesNanos = new long[1024];
+		private int count = 0;
+
+		private void record(final long latencyNanos)
+		{
+			if (count == latenciesNanos.length)
+			{
+				if (count == MAX_LATENCY_SAMPLES_PER_THREAD)
+				{
+					return;
+				}
+
+				latenciesNanos = Arrays.copyOf(latenciesNanos, Math.min(MAX_LATENCY_SAMPLES_PER_THREAD, count * 2));
+			}
+
+			latenciesNanos[count++] = latencyNanos;
+		}
+	}
+
+	private static DecisionType evaluate(final BasePdpEngine pdp, final DecisionRequestBuilder<?> requestBuilder, final RequestData requestData)
+	{
+		requestBuilder.reset();
+		// JSON values parsed as part of the request processing
+		requestBuilder.putNamedAttributeIfAbsent(SUBJECT_PROFILE_ATTRIBUTE_FQN, Bags.singletonAttributeBag(JsonValue.DATATYPE, new JsonValue(requestData.subjectProfileJson()), AttributeSources.REQUEST));
+		requestBuilder.putNamedAttributeIfAbsent(RESOURCE_DOCUMENT_ATTRIBUTE_FQN, Bags.singletonAttributeBag(JsonValue.DATATYPE, new JsonValue(requestData.resourceDocumentJson()), AttributeSources.REQUEST));
+		requestBuilder.putNamedAttributeIfAbsent(ACTION_ID_ATTRIBUTE_FQN, Bags.singletonAttributeBag(StandardDatatypes.STRING, new StringValue(requestData.action()), AttributeSources.REQUEST));
+		return pdp.evaluate(requestBuilder.build(false)).getDecision();
+	}
+
+	private static RunResult run(final BasePdpEngine pdp, final DocumentSize documentSize, final List<RequestData> requests, final int threadCount, final long warmupMillis, final long durationMillis,
+	        final GcPauseRecorder gcPauseRecorder) throws InterruptedException
+	{
+		final ThreadMXBean threadMxBean = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+		final LongAdder decisionCount = new LongAdder();
+		final Map<DecisionType, LongAdder> decisionCounts = new EnumMap<>(DecisionType.class);
+		for (final DecisionType decision : DecisionType.values())
+		{
+			decisionCounts.put(decision, new LongAdder());
+		}
+
+		final LatencyRecorder[] latencyRecorders = new LatencyRecorder[threadCount];
+		final long[] allocatedBytesAtStart = new long[threadCount];
+		final long[] allocatedBytes = new long[threadCount];
+		final CountDownLatch startLatch = new CountDownLatch(1);
+		final CountDownLatch endLatch = new CountDownLatch(threadCount);
+		final long[] measurementStartEnd = new long[2];
+		final List<Thread> threads = new ArrayList<>(threadCount);
+		for (int t = 0; t < threadCount; t++)
+		{
+			final int threadIndex = t;
+			latencyRecorders[t] = new LatencyRecorder();
+			final Thread thread = new Thread(() -> {
+				final DecisionRequestBuilder<?> requestBuilder = pdp.newRequestBuilder(2, 3);
+				final LatencyRecorder latencyRecorder = latencyRecorders[threadIndex];
+				// each thread starts at a different request
+				int requestIndex = threadIndex * requests.size() / threadCount;
+				try
+				{
+					startLatch.await();
+				}
+				catch (final InterruptedException e)
+				{
+					Thread.currentThread().interrupt();
+					return;
+				}
+
+				final long measurementStart = measurementStartEnd[0];
+				final long measurementEnd = measurementStartEnd[1];
+				boolean isMeasuring = false;
+				while (true)
+				{
+					final long start = System.nanoTime();
+					if (start >= measurementEnd)
+					{
+						break;
+					}
+
+					if (!isMeasuring && start >= measurementStart)
+					{
+						isMeasuring = true;
+						allocatedBytesAtStart[threadIndex] = threadMxBean.getCurrentThreadAllocatedBytes();
+					}
+
+					final DecisionType decision = evaluate(pdp, requestBuilder, requests.get(requestIndex));
+					if (isMeasuring)
+					{
+						latencyRecorder.record(System.nanoTime() - start);
+						decisionCount.increment();
+						decisionCounts.get(decision).increment();
+					}
+
+					requestIndex = (requestIndex + 1) % requests.size();
+				}
+
+				allocatedBytes[threadIndex] = isMeasuring ? threadMxBean.getCurrentThreadAllocatedBytes() - allocatedBytesAtStart[threadIndex] : 0;
+				endLatch.countDown();
+			}, "pdp-load-test-" + t);
+			threads.add(thread);
+			thread.start();
+		}
+
+		final long now = System.nanoTime();
+		measurementStartEnd[0] = now + warmupMillis * 1_000_000;
+		measurementStartEnd[1] = measurementStartEnd[0] + durationMillis * 1_000_000;
+		// GC pauses during warm-up are ignored
+		final Thread gcResetThread = new Thread(() -> {
+			try
+			{
+				Thread.sleep(warmupMillis);
+			}
+			catch (final InterruptedException e)
+			{
+				Thread.currentThread().interrupt();
+			}
+			gcPauseRecorder.reset();
+		});
+		gcResetThread.start();
+		startLatch.countDown();
+		endLatch.await();
+		gcResetThread.join();
+		for (final Thread thread : threads)
+		{
+			thread.join();
+		}
+
+		int totalLatencyCount = 0;
+		for (final LatencyRecorder latencyRecorder : latencyRecorders)
+		{
+			totalLatencyCount += latencyRecorder.count;
+		}
+
+		final long[] allLatencies = new long[totalLatencyCount];
+		int offset = 0;
+		for (final LatencyRecorder latencyRecorder : latencyRecorders)
+		{
+			System.arraycopy(latencyRecorder.latenciesNanos, 0, allLatencies, offset, latencyRecorder.count);
+			offset += latencyRecorder.count;
+		}
+
+		Arrays.sort(allLatencies);
+		final Map<DecisionType, Long> decisionCountsSnapshot = new EnumMap<>(DecisionType.class);
+		decisionCounts.forEach((decision, count) -> decisionCountsSnapshot.put(decision, count.sum()));
+		return new RunResult(documentSize, threadCount, decisionCount.sum(), durationMillis / 1000.0, allLatencies, decisionCountsSnapshot, Arrays.stream(allocatedBytes).sum(),
+		        gcPauseRecorder.pauseCount.get(), gcPauseRecorder.totalPauseMillis.get(), gcPauseRecorder.maxPauseMillis.get());
+	}
+
+	/**
+	 * Runs the load test
+	 *
+	 * @param args
+	 *            options (see class description)
+	 * @throws Exception
+	 *             load test error
+	 */
+	public static void main(final String... args) throws Exception
+	{
+		int[] threadCounts = { 1, 2, 4, 8 };
+		DocumentSize[] documentSizes = DocumentSize.values();
+		long warmupSec = 10;
+		long durationSec = 30;
+		int requestCount = 1000;
+		// options may be passed as a single argument, e.g. by the Maven exec plugin
+		final String joinedArgs = String.join(" ", args).trim();
+		final String[] options = joinedArgs.isEmpty() ? new String[0] : joinedArgs.split("\\s+");
+		for (int i = 0; i < options.length; i += 2)
+		{
+			if (i + 1 == options.length)
+			{
+				throw new IllegalArgumentException("Missing value of option " + options[i]);
+			}
+
+			final String optionValue = options[i + 1];
+			switch (options[i])
+			{
+				case "-threads" -> threadCounts = Arrays.stream(optionValue.split(",")).mapToInt(Integer::parseInt).toArray();
+				case "-sizes" -> documentSizes = Arrays.stream(optionValue.split(",")).map(s -> DocumentSize.valueOf(s.trim().toUpperCase(Locale.ROOT))).toArray(DocumentSize[]::new);
+				case "-warmup" -> warmupSec = Long.parseLong(optionValue);
+				case "-duration" -> durationSec = Long.parseLong(optionValue);
+				case "-requests" -> requestCount = Integer.parseInt(optionValue);
+				default -> throw new IllegalArgumentException("Unknown option: " + options[i]);
+			}
+		}
+
+		final GcPauseRecorder gcPauseRecorder = new GcPauseRecorder();
+		gcPauseRecorder.register();
+		final PdpEngineConfiguration pdpConf = PdpEngineConfiguration.getInstance("classpath:pdp.xml");
+		try (final BasePdpEngine pdp = new BasePdpEngine(pdpConf))
+		{
+			System.out.printf(Locale.ROOT, "JVM: %s %s, %d CPUs, max heap: %d MB, GC: %s; warm-up: %ds, duration: %ds, distinct requests: %d%n", System.getProperty("java.vm.name"),
+			        System.getProperty("java.version"), Runtime.getRuntime().availableProcessors(), Runtime.getRuntime().maxMemory() / (1024 * 1024),
+			        ManagementFactory.getGarbageCollectorMXBeans().stream().map(GarbageCollectorMXBean::getName).toList(), warmupSec, durationSec, requestCount);
+			System.out.printf(Locale.ROOT, "%-7s %7s %12s %10s %10s %10s %12s %8s %10s %10s   %s%n", "SIZE", "THREADS", "DECISIONS/S", "P50(us)", "P99(us)", "P999(us)", "ALLOC(MB/s)", "GC_PAUSES",
+			        "GC_TOT(ms)", "GC_MAX(ms)", "DECISIONS");
+			for (final DocumentSize documentSize : documentSizes)
+			{
+				final List<RequestData> requests = new RequestGenerator(documentSize, REQUEST_GENERATOR_SEED).generate(requestCount);
+				for (final int threadCount : threadCounts)
+				{
+					final RunResult result = run(pdp, documentSize, requests, threadCount, warmupSec * 1000, durationSec * 1000, gcPauseRecorder);
+					System.out.println(result.toReportLine());
+				}
+			}
+		}
+	}
+}
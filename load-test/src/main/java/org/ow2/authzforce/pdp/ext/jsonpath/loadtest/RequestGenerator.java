@@ -0,0 +1,150 @@
+/*
+ * Copyright 2012-2024 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.loadtest;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Generator of synthetic request data for the load test: JSON subject profiles and resource documents - matching the policies in {@code policies/root.xml} - with a size depending on the
+ * {@link DocumentSize}. Generation is deterministic (seeded) so that results can be compared between runs.
+ */
+final class RequestGenerator
+{
+	/**
+	 * Size of generated JSON resource documents
+	 */
+	enum DocumentSize
+	{
+		/**
+		 * ~1 KB documents
+		 */
+		SMALL(5, 5),
+
+		/**
+		 * ~10 KB documents
+		 */
+		MEDIUM(50, 50),
+
+		/**
+		 * ~100 KB documents
+		 */
+		LARGE(500, 500);
+
+		private final int itemCount;
+		private final int aclEntryCount;
+
+		DocumentSize(final int itemCount, final int aclEntryCount)
+		{
+			this.itemCount = itemCount;
+			this.aclEntryCount = aclEntryCount;
+		}
+	}
+
+	/**
+	 * Request data, i.e. raw JSON attribute values (parsed as part of the request processing) and action
+	 */
+	record RequestData(String subjectProfileJson, String resourceDocumentJson, String action)
+	{
+	}
+
+	private static final String[] ROLES = { "employee", "manager", "director", "auditor", "contractor" };
+
+	private static final int USER_COUNT = 1000;
+
+	private final Random random;
+	private final DocumentSize documentSize;
+
+	RequestGenerator(final DocumentSize documentSize, final long seed)
+	{
+		this.documentSize = documentSize;
+		this.random = new Random(seed);
+	}
+
+	private String randomUserId()
+	{
+		return "u" + random.nextInt(USER_COUNT);
+	}
+
+	private String newSubjectProfile(final String userId)
+	{
+		final StringBuilder json = new StringBuilder(256).append("{\"id\":\"").append(userId).append("\",\"department\":\"dept").append(random.nextInt(20)).append("\",\"roles\":[\"employee\"");
+		final String extraRole = ROLES[random.nextInt(ROLES.length)];
+		if (!extraRole.equals("employee"))
+		{
+			json.append(",\"").append(extraRole).append('"');
+		}
+
+		return json.append("],\"clearance\":").append(random.nextInt(5)).append(",\"limits\":{\"maxOrderAmount\":").append(String.format(Locale.ROOT, "%.1f", 100.5 + random.nextInt(2000))).append("}}")
+		        .toString();
+	}
+
+	private String newResourceDocument(final String userId)
+	{
+		final StringBuilder json = new StringBuilder(documentSize.itemCount * 200).append("{\"id\":\"doc").append(random.nextInt(1_000_000)).append("\",\"type\":\"order\",\"classification\":")
+		        .append(random.nextInt(5)).append(",\"published\":").append(random.nextBoolean()).append(",\"items\":[");
+		for (int i = 0; i < documentSize.itemCount; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			// the subject created one of the items in 10% of the documents
+			final String creator = i == 0 && random.nextInt(10) == 0 ? userId : randomUserId();
+			json.append("{\"sku\":\"SKU-").append(random.nextInt(100_000)).append("\",\"quantity\":").append(1 + random.nextInt(10)).append(",\"price\":")
+			        .append(String.format(Locale.ROOT, "%.2f", 0.01 + random.nextInt(150_000) / 100.0)).append(",\"metadata\":{\"createdBy\":\"").append(creator).append("\"}}");
+		}
+
+		json.append("],\"acl\":[");
+		for (int i = 0; i < documentSize.aclEntryCount; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			// the subject is in the ACL of 30% of the documents
+			final String aclSubject = i == documentSize.aclEntryCount - 1 && random.nextInt(10) < 3 ? userId : randomUserId();
+			json.append("{\"subject\":\"").append(aclSubject).append("\",\"actions\":[\"read\"]}");
+		}
+
+		return json.append("]}").toString();
+	}
+
+	/**
+	 * Generates request data
+	 *
+	 * @param count
+	 *            number of requests
+	 * @return request data
+	 */
+	List<RequestData> generate(final int count)
+	{
+		final List<RequestData> requests = new ArrayList<>(count);
+		for (int i = 0; i < count; i++)
+		{
+			final String userId = randomUserId();
+			requests.add(new RequestData(newSubjectProfile(userId), newResourceDocument(userId), random.nextBoolean() ? "read" : "approve"));
+		}
+
+		return requests;
+	}
+}
@@ -0,0 +1,370 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.jayway.jsonpath.Configuration;
+import com.jayway.jsonpath.EvaluationListener;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.PathNotFoundException;
+
+/**
+ * Compiled JSONPath that is evaluated with a hash index - instead of a scan of the whole JSON array - when it is of the form {@code <array path>[?(@.<member> == '<string>')]<rest>}, where
+ * {@code <array path>} is a definite path (no wildcard, deep scan or filter) to a JSON array of objects, e.g. {@code $.permissions[?(@.resourceId == 'abc')].actions[*]}.
+ * <p>
+ * The index maps each string value of the member to the array elements (objects) having this value, in array order. It is built lazily - on the first evaluation - and cached in the
+ * {@link JsonValue} (see {@link JsonValue#getIndex(Object, java.util.function.Function)}), keyed by (array path, member name), therefore shared by all JSONPaths filtering the same array on the same
+ * member. The index is not used - the JSONPath is evaluated by the JSONPath processor as usual - if the array is smaller than the value of the system property
+ * {@value #EQUALITY_INDEX_MIN_ARRAY_SIZE_SYSTEM_PROPERTY_NAME} (default: {@value #DEFAULT_EQUALITY_INDEX_MIN_ARRAY_SIZE}; zero or negative value disables indexing), or if the member is not a string
+ * (or null) in some element, in which case the JSONPath processor's equality semantics (e.g. string/number conversion) would differ.
+ */
+final class IndexableJsonPath
+{
+	/**
+	 * Name of the system property that sets the minimum size of a JSON array to be indexed
+	 */
+	static final String EQUALITY_INDEX_MIN_ARRAY_SIZE_SYSTEM_PROPERTY_NAME = "org.ow2.authzforce.pdp.ext.jsonpath.equalityIndexMinArraySize";
+
+	static final int DEFAULT_EQUALITY_INDEX_MIN_ARRAY_SIZE = 32;
+
+	private static final int EQUALITY_INDEX_MIN_ARRAY_SIZE = Integer.getInteger(EQUALITY_INDEX_MIN_ARRAY_SIZE_SYSTEM_PROPERTY_NAME, DEFAULT_EQUALITY_INDEX_MIN_ARRAY_SIZE);
+
+	private static final String MEMBER_NAME_REGEX = "[A-Za-z_][A-Za-z0-9_-]*";
+
+	/*
+	 * Groups: 1 = array path, 2/3 = member name (dot/bracket notation), 4/5 = string literal (single/double quotes, without escape character), 6 = rest of the path
+	 */
+	private static final Pattern EQUALITY_FILTER_PATH_PATTERN = Pattern.compile("^(\\$(?:\\s*(?:\\." + MEMBER_NAME_REGEX + "|\\['[^'\\\\]*'\\]|\\[\\d+\\]))*)\\s*\\[\\s*\\?\\s*\\(\\s*@(?:\\.(" + MEMBER_NAME_REGEX
+	        + ")|\\['([^'\\\\]*)'\\])\\s*==\\s*(?:'([^'\\\\]*)'|\"([^\"\\\\]*)\")\\s*\\)\\s*\\](.*)$", Pattern.DOTALL);
+
+	/*
+	 * Marker of non-indexable array (cached to avoid trying to build the index again)
+	 */
+	private static final Map<String, List<Object>> NOT_INDEXABLE = Collections.emptyMap();
+
+	private record IndexKey(String arrayPath, String memberName)
+	{
+	}
+
+	private final JsonPath jsonPath;
+
+	/*
+	 * The following are null iff the JSONPath is not indexable
+	 */
+	private final JsonPath arrayPath;
+	private final IndexKey indexKey;
+	private final String memberValue;
+	// null if no path after the filter
+	private final JsonPath restPath;
+
+	private IndexableJsonPath(final JsonPath jsonPath, final JsonPath arrayPath, final String memberName, final String memberValue, final JsonPath restPath)
+	{
+		this.jsonPath = jsonPath;
+		this.arrayPath = arrayPath;
+		this.indexKey = arrayPath == null ? null : new IndexKey(arrayPath.getPath(), memberName);
+		this.memberValue = memberValue;
+		this.restPath = restPath;
+	}
+
+	/**
+	 * Compiles a JSONPath
+	 *
+	 * @param path
+	 *            JSONPath
+	 * @return compiled JSONPath
+	 * @throws InvalidPathException
+	 *             invalid JSONPath
+	 */
+	static IndexableJsonPath compile(final String path) throws InvalidPathException
+	{
+		final JsonPath jsonPath = JsonPath.compile(path);
+		if (EQUALITY_INDEX_MIN_ARRAY_SIZE <= 0)
+		{
+			return new IndexableJsonPath(jsonPath, null, null, null, null);
+		}
+
+		final Matcher matcher = EQUALITY_FILTER_PATH_PATTERN.matcher(path);
+		if (!matcher.matches())
+		{
+			return new IndexableJsonPath(jsonPath, null, null, null, null);
+		}
+
+		final String rest = matcher.group(6).strip();
+		// a reference to the root ($) in the rest of the path would be resolved against the array element instead of the root
+		if (rest.contains("$"))
+		{
+			return new IndexableJsonPath(jsonPath, null, null, null, null);
+		}
+
+		final JsonPath arrayPath;
+		final JsonPath restPath;
+		try
+		{
+			arrayPath = JsonPath.compile(matcher.group(1));
+			restPath = rest.isEmpty() ? null : JsonPath.compile("$" + rest);
+		}
+		catch (final InvalidPathException e)
+		{
+			return new IndexableJsonPath(jsonPath, null, null, null, null);
+		}
+
+		if (!arrayPath.isDefinite())
+		{
+			return new IndexableJsonPath(jsonPath, null, null, null, null);
+		}
+
+		return new IndexableJsonPath(jsonPath, arrayPath, matcher.group(2) != null ? matcher.group(2) : matcher.group(3), matcher.group(4) != null ? matcher.group(4) : matcher.group(5), restPath);
+	}
+
+	private Map<String, List<Object>> buildIndex(final Object json)
+	{
+		final Object array;
+		try
+		{
+			array = arrayPath.read(json, JsonValue.JSON_PROCESSOR_CONFIGURATION);
+		}
+		catch (final PathNotFoundException e)
+		{
+			return NOT_INDEXABLE;
+		}
+
+		if (!(array instanceof List<?> elements) || elements.size() < EQUALITY_INDEX_MIN_ARRAY_SIZE)
+		{
+			return NOT_INDEXABLE;
+		}
+
+		final Map<String, List<Object>> index = new HashMap<>();
+		for (final Object element : elements)
+		{
+			if (!(element instanceof Map<?, ?> jsonObject))
+			{
+				return NOT_INDEXABLE;
+			}
+
+			final Object key = jsonObject.get(indexKey.memberName);
+			if (key instanceof String s)
+			{
+				index.computeIfAbsent(s, k -> new ArrayList<>(1)).add(element);
+			}
+			else if (key != null)
+			{
+				return NOT_INDEXABLE;
+			}
+			// else member undefined or null: never equal to a string
+		}
+
+		return index;
+	}
+
+	/**
+	 * Get the equality index used to evaluate this JSONPath against a JSON value, if already built
+	 *
+	 * @param json
+	 *            JSON value
+	 * @return the index, or null if the JSONPath is not indexable, or the index is not built (yet) or the JSON array not indexable (e.g. too small)
+	 */
+	Map<String, List<Object>> getIndex(final JsonValue json)
+	{
+		if (indexKey == null)
+		{
+			return null;
+		}
+
+		@SuppressWarnings("unchecked")
+		final Map<String, List<Object>> index = (Map<String, List<Object>>) json.getIndexIfBuilt(indexKey);
+		return index == NOT_INDEXABLE ? null : index;
+	}
+
+	/**
+	 * Get the JSONPath, in normalized form (for logging and error messages)
+	 *
+	 * @return JSONPath
+	 */
+	String getPath()
+	{
+		return jsonPath.getPath();
+	}
+
+	/**
+	 * Tells whether the JSONPath is definite, i.e. returns a single result (no wildcard, deep scan or filter)
+	 *
+	 * @return true iff the JSONPath is definite
+	 */
+	boolean isDefinite()
+	{
+		return jsonPath.isDefinite();
+	}
+
+	/**
+	 * Evaluates the JSONPath against a JSON value, using the (possibly new) index on the JSON value if the JSONPath is indexable
+	 *
+	 * @param json
+	 *            JSON value
+	 * @return evaluation result, same as returned by the JSONPath processor: a List if the JSONPath is indefinite
+	 * @throws PathNotFoundException
+	 *             if the JSONPath is definite and not found in the JSON value
+	 */
+	Object read(final JsonValue json) throws PathNotFoundException
+	{
+		if (indexKey != null)
+		{
+			final Map<String, List<Object>> index = json.getIndex(indexKey, this::buildIndex);
+			// index == null if too many indexes on the JSON value already
+			if (index != null && index != NOT_INDEXABLE)
+			{
+				final List<Object> matchingElements = index.getOrDefault(memberValue, Collections.emptyList());
+				if (restPath == null)
+				{
+					return new ArrayList<>(matchingElements);
+				}
+
+				final List<Object> results = new ArrayList<>();
+				for (final Object element : matchingElements)
+				{
+					final Object result;
+					try
+					{
+						result = restPath.read(element, JsonValue.JSON_PROCESSOR_CONFIGURATION);
+					}
+					catch (final PathNotFoundException e)
+					{
+						// rest of the path not found in this element (skipped like in any indefinite path)
+						continue;
+					}
+
+					if (restPath.isDefinite())
+					{
+						results.add(result);
+					}
+					else
+					{
+						results.addAll((List<?>) result);
+					}
+				}
+
+				return results;
+			}
+		}
+
+		return jsonPath.read((Object) json.getJsonPathReadContext().json(), JsonValue.JSON_PROCESSOR_CONFIGURATION);
+	}
+
+	/**
+	 * Evaluates the (indefinite) JSONPath against a JSON value - like {@link #read(JsonValue)} - but passes each result to {@code resultHandler} as soon as it is found by the JSONPath processor (with an
+	 * {@link EvaluationListener}), instead of returning the list of results, and stops the JSON traversal as soon as {@code resultHandler} returns false (e.g. deep scan of a large JSON value for the
+	 * first match only). A definite JSONPath returns a single result, i.e. there is no traversal to stop: use {@link #read(JsonValue)} instead.
+	 *
+	 * @param json
+	 *            JSON value
+	 * @param resultHandler
+	 *            result handler, called for each result in the order they are found, returning false to stop the evaluation
+	 */
+	void forEach(final JsonValue json, final Predicate<Object> resultHandler)
+	{
+		assert !jsonPath.isDefinite();
+		final boolean[] isAborted = { false };
+		final Configuration listeningConfiguration = JsonValue.JSON_PROCESSOR_CONFIGURATION.addEvaluationListeners(foundResult -> {
+			if (resultHandler.test(foundResult.result()))
+			{
+				return EvaluationListener.EvaluationContinuation.CONTINUE;
+			}
+
+			isAborted[0] = true;
+			return EvaluationListener.EvaluationContinuation.ABORT;
+		});
+
+		if (indexKey != null)
+		{
+			final Map<String, List<Object>> index = json.getIndex(indexKey, this::buildIndex);
+			// index == null if too many indexes on the JSON value already
+			if (index != null && index != NOT_INDEXABLE)
+			{
+				for (final Object element : index.getOrDefault(memberValue, Collections.emptyList()))
+				{
+					if (restPath == null)
+					{
+						isAborted[0] = !resultHandler.test(element);
+					}
+					else
+					{
+						try
+						{
+							restPath.read(element, listeningConfiguration);
+						}
+						catch (final PathNotFoundException e)
+						{
+							// rest of the path not found in this element (skipped like in any indefinite path)
+						}
+					}
+
+					if (isAborted[0])
+					{
+						return;
+					}
+				}
+
+				return;
+			}
+		}
+
+		jsonPath.read((Object) json.getJsonPathReadContext().json(), listeningConfiguration);
+	}
+
+	/**
+	 * Evaluates the (indefinite) JSONPath against a JSON value - like {@link #read(JsonValue)} - but stops the JSON traversal as soon as {@code maxResults} valid results are found (e.g. deep scan of a
+	 * large JSON value for the first match only). A definite JSONPath returns a single result, i.e. there is no traversal to stop: use {@link #read(JsonValue)} instead.
+	 *
+	 * @param json
+	 *            JSON value
+	 * @param converter
+	 *            result converter, returning null if the result is not valid (e.g. not of the expected type), in which case it is skipped
+	 * @param maxResults
+	 *            maximum number of (valid) results (strictly positive)
+	 * @return the first (at most) {@code maxResults} valid results, converted with {@code converter}, in the order they are found
+	 */
+	<T> List<T> read(final JsonValue json, final java.util.function.Function<Object, T> converter, final int maxResults)
+	{
+		assert maxResults > 0;
+		final List<T> results = new ArrayList<>(Math.min(maxResults, 16));
+		forEach(json, result -> {
+			final T convertedResult = converter.apply(result);
+			if (convertedResult != null)
+			{
+				results.add(convertedResult);
+			}
+
+			return results.size() < maxResults;
+		});
+		return results;
+	}
+
+	@Override
+	public String toString()
+	{
+		return jsonPath.getPath();
+	}
+}
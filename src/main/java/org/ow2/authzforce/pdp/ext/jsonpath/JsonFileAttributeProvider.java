@@ -0,0 +1,490 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.ListIterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+import com.google.common.base.Preconditions;
+import com.jayway.jsonpath.InvalidJsonException;
+import oasis.names.tc.xacml._3_0.core.schema.wd_17.AttributeDesignatorType;
+import org.ow2.authzforce.core.pdp.api.AttributeFqn;
+import org.ow2.authzforce.core.pdp.api.AttributeFqns;
+import org.ow2.authzforce.core.pdp.api.AttributeSource;
+import org.ow2.authzforce.core.pdp.api.AttributeSources;
+import org.ow2.authzforce.core.pdp.api.BaseNamedAttributeProvider;
+import org.ow2.authzforce.core.pdp.api.CloseableNamedAttributeProvider;
+import org.ow2.authzforce.core.pdp.api.EnvironmentProperties;
+import org.ow2.authzforce.core.pdp.api.EvaluationContext;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.NamedAttributeProvider;
+import org.ow2.authzforce.core.pdp.api.value.AttributeBag;
+import org.ow2.authzforce.core.pdp.api.value.AttributeValue;
+import org.ow2.authzforce.core.pdp.api.value.AttributeValueFactoryRegistry;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.Datatype;
+import org.ow2.authzforce.pdp.ext.jsonpath.xmlns.JsonFileAttribute;
+import org.ow2.authzforce.pdp.ext.jsonpath.xmlns.JsonFileAttributeProviderDescriptor;
+import org.ow2.authzforce.xacml.identifiers.XacmlStatusCode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Attribute Provider that provides JSON attributes (datatype {@link JsonValue#DATATYPE}) from local JSON files, e.g. JSON reference data such as entitlement tables or org charts, instead of inlining
+ * them in policies.
+ * <p>
+ * Each file is read through memory-mapped I/O - no copy of the whole file content in the heap - and parsed once into an immutable JSON value (without raw JSON text), which is shared by all instances
+ * of this Attribute Provider (therefore all PDPs) using the same file in the same JVM. The file modification (last modified time, size or file key) is checked on attribute requests, at most once per
+ * configured interval, and without lock: if the file is modified, it is parsed again in the background - by a single daemon thread shared by all instances, running as long as any file is in use -
+ * and the new JSON value is swapped atomically with the previous one once parsed; in the meantime, and if the new file content is not valid, the previous JSON value is returned (the invalid file is
+ * not parsed again until modified again).
+ */
+public final class JsonFileAttributeProvider extends BaseNamedAttributeProvider
+{
+	private static final Logger LOGGER = LoggerFactory.getLogger(JsonFileAttributeProvider.class);
+
+	private static final AttributeSource ATTRIBUTE_SOURCE = AttributeSources.newCustomSource(JsonFileAttributeProvider.class.getSimpleName());
+
+	/*
+	 * JSON files loaded by all instances
+	 */
+	private static final SharedJsonFileRegistry SHARED_JSON_FILES = new SharedJsonFileRegistry();
+
+	/**
+	 * {@link InputStream} reading a {@link ByteBuffer}, e.g. memory-mapped file
+	 */
+	private static final class ByteBufferInputStream extends InputStream
+	{
+		private final ByteBuffer buffer;
+
+		private ByteBufferInputStream(final ByteBuffer buffer)
+		{
+			this.buffer = buffer;
+		}
+
+		@Override
+		public int read()
+		{
+			return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+		}
+
+		@Override
+		public int read(final byte[] bytes, final int offset, final int length)
+		{
+			Objects.checkFromIndexSize(offset, length, bytes.length);
+			if (length == 0)
+			{
+				return 0;
+			}
+
+			if (!buffer.hasRemaining())
+			{
+				return -1;
+			}
+
+			final int readLength = Math.min(length, buffer.remaining());
+			buffer.get(bytes, offset, readLength);
+			return readLength;
+		}
+
+		@Override
+		public int available()
+		{
+			return buffer.remaining();
+		}
+	}
+
+	/*
+	 * Makes the parsed JSON (JSON objects/arrays) unmodifiable (in place, no copy)
+	 */
+	@SuppressWarnings("unchecked")
+	private static Object toUnmodifiable(final Object json)
+	{
+		if (json instanceof Map<?, ?> jsonObject)
+		{
+			for (final Map.Entry<String, Object> jsonMember : ((Map<String, Object>) jsonObject).entrySet())
+			{
+				jsonMember.setValue(toUnmodifiable(jsonMember.getValue()));
+			}
+
+			return Collections.unmodifiableMap(jsonObject);
+		}
+
+		if (json instanceof List<?> jsonArray)
+		{
+			final ListIterator<Object> jsonItemIterator = ((List<Object>) jsonArray).listIterator();
+			while (jsonItemIterator.hasNext())
+			{
+				jsonItemIterator.set(toUnmodifiable(jsonItemIterator.next()));
+			}
+
+			return Collections.unmodifiableList(jsonArray);
+		}
+
+		return json;
+	}
+
+	/*
+	 * JSON file version, i.e. file attributes used for modification checks
+	 */
+	private record JsonFileVersion(FileTime lastModifiedTime, long size, Object fileKey)
+	{
+		private JsonFileVersion(final BasicFileAttributes fileAttributes)
+		{
+			this(fileAttributes.lastModifiedTime(), fileAttributes.size(), fileAttributes.fileKey());
+		}
+
+		private boolean isSameVersion(final BasicFileAttributes fileAttributes)
+		{
+			return lastModifiedTime.equals(fileAttributes.lastModifiedTime()) && size == fileAttributes.size() && Objects.equals(fileKey, fileAttributes.fileKey());
+		}
+	}
+
+	/*
+	 * JSON file content at a given time
+	 */
+	private record JsonFileSnapshot(JsonFileVersion version, AttributeBag<JsonValue> jsonBag)
+	{
+	}
+
+	/**
+	 * JSON file shared by all instances of this Attribute Provider
+	 */
+	private static final class SharedJsonFile
+	{
+		private final Path path;
+		private final ExecutorService reloadExecutor;
+		private final AtomicReference<JsonFileSnapshot> snapshot;
+		/*
+		 * Version of the file that failed to load last (not reloaded until modified again), null if none
+		 */
+		private volatile JsonFileVersion failedVersion = null;
+		// System.nanoTime() of the next modification check
+		private final AtomicLong nextCheckTime;
+		private final AtomicBoolean isReloading = new AtomicBoolean(false);
+
+		/*
+		 * Number of Attribute Provider instances using the file (guarded by SHARED_JSON_FILES)
+		 */
+		private int refCount = 0;
+
+		private SharedJsonFile(final Path path, final JsonFileSnapshot snapshot, final ExecutorService reloadExecutor)
+		{
+			this.path = path;
+			this.reloadExecutor = reloadExecutor;
+			this.snapshot = new AtomicReference<>(snapshot);
+			this.nextCheckTime = new AtomicLong(System.nanoTime());
+		}
+
+		private static JsonFileSnapshot load(final Path path) throws IllegalArgumentException
+		{
+			try
+			{
+				// file attributes read before the content, so that a modification during the read is detected by the next check
+				return load(path, Files.readAttributes(path, BasicFileAttributes.class));
+			}
+			catch (final IOException e)
+			{
+				throw new IllegalArgumentException("Error reading JSON file: " + path, e);
+			}
+		}
+
+		private static JsonFileSnapshot load(final Path path, final BasicFileAttributes fileAttributes) throws IOException, IllegalArgumentException
+		{
+			final Object json;
+			try (final FileChannel fileChannel = FileChannel.open(path, StandardOpenOption.READ))
+			{
+				final long size = fileChannel.size();
+				Preconditions.checkArgument(size <= Integer.MAX_VALUE, "JSON file too big (> 2 GB): " + path);
+				json = JsonValue.JSON_PROCESSOR_CONFIGURATION.jsonProvider().parse(new ByteBufferInputStream(fileChannel.map(FileChannel.MapMode.READ_ONLY, 0, size)), StandardCharsets.UTF_8.name());
+			}
+			catch (final InvalidJsonException e)
+			{
+				throw new IllegalArgumentException("Invalid JSON file: " + path, e);
+			}
+
+			final JsonValue jsonValue = JsonValue.fromParsedJson(toUnmodifiable(json));
+			return new JsonFileSnapshot(new JsonFileVersion(fileAttributes), Bags.singletonAttributeBag(JsonValue.DATATYPE, jsonValue, ATTRIBUTE_SOURCE));
+		}
+
+		private void reload(final JsonFileSnapshot currentSnapshot, final BasicFileAttributes fileAttributes)
+		{
+			try
+			{
+				final JsonFileSnapshot newSnapshot = load(path, fileAttributes);
+				snapshot.compareAndSet(currentSnapshot, newSnapshot);
+				failedVersion = null;
+				LOGGER.info("JSON file reloaded: {}", path);
+			}
+			catch (final IOException | RuntimeException e)
+			{
+				failedVersion = new JsonFileVersion(fileAttributes);
+				LOGGER.warn("Error reloading modified JSON file '{}' (previous content still used until the file is modified again)", path, e);
+			}
+			finally
+			{
+				isReloading.set(false);
+			}
+		}
+
+		private AttributeBag<JsonValue> get(final long reloadCheckIntervalNanos)
+		{
+			final JsonFileSnapshot currentSnapshot = snapshot.get();
+			if (reloadCheckIntervalNanos > 0)
+			{
+				final long now = System.nanoTime();
+				final long checkTime = nextCheckTime.get();
+				// only one thread does the check
+				if (now - checkTime >= 0 && nextCheckTime.compareAndSet(checkTime, now + reloadCheckIntervalNanos))
+				{
+					final BasicFileAttributes fileAttributes;
+					try
+					{
+						fileAttributes = Files.readAttributes(path, BasicFileAttributes.class);
+					}
+					catch (final IOException e)
+					{
+						LOGGER.warn("Error checking modification of JSON file '{}' (previous content still used)", path, e);
+						return currentSnapshot.jsonBag;
+					}
+
+					final JsonFileVersion lastFailedVersion = failedVersion;
+					if (!currentSnapshot.version.isSameVersion(fileAttributes) && (lastFailedVersion == null || !lastFailedVersion.isSameVersion(fileAttributes)) && isReloading.compareAndSet(false, true))
+					{
+						try
+						{
+							reloadExecutor.execute(() -> reload(currentSnapshot, fileAttributes));
+						}
+						catch (final RejectedExecutionException e)
+						{
+							// file no longer in use (all Attribute Providers closed)
+							isReloading.set(false);
+						}
+					}
+				}
+			}
+
+			return currentSnapshot.jsonBag;
+		}
+	}
+
+	/**
+	 * Registry of the JSON files in use by all instances of this Attribute Provider, by absolute path, and of the executor reloading them (shut down when no longer in use)
+	 */
+	private static final class SharedJsonFileRegistry
+	{
+		// guarded by this
+		private final Map<Path, SharedJsonFile> jsonFiles = new HashMap<>();
+		// guarded by this, null iff jsonFiles is empty
+		private ExecutorService reloadExecutor = null;
+
+		private synchronized SharedJsonFile acquireIfPresent(final Path path)
+		{
+			final SharedJsonFile jsonFile = jsonFiles.get(path);
+			if (jsonFile != null)
+			{
+				jsonFile.refCount++;
+			}
+
+			return jsonFile;
+		}
+
+		private synchronized SharedJsonFile acquire(final Path path, final JsonFileSnapshot snapshot)
+		{
+			final SharedJsonFile loadedJsonFile = acquireIfPresent(path);
+			if (loadedJsonFile != null)
+			{
+				// loaded concurrently in the meantime
+				return loadedJsonFile;
+			}
+
+			if (reloadExecutor == null)
+			{
+				reloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+					final Thread thread = new Thread(runnable, JsonFileAttributeProvider.class.getSimpleName() + "-reload");
+					thread.setDaemon(true);
+					return thread;
+				});
+			}
+
+			final SharedJsonFile jsonFile = new SharedJsonFile(path, snapshot, reloadExecutor);
+			jsonFile.refCount++;
+			jsonFiles.put(path, jsonFile);
+			return jsonFile;
+		}
+
+		private SharedJsonFile acquire(final Path path) throws IllegalArgumentException
+		{
+			final SharedJsonFile loadedJsonFile = acquireIfPresent(path);
+			if (loadedJsonFile != null)
+			{
+				return loadedJsonFile;
+			}
+
+			// parsed without lock
+			return acquire(path, SharedJsonFile.load(path));
+		}
+
+		private synchronized void release(final SharedJsonFile jsonFile)
+		{
+			assert jsonFile.refCount > 0;
+			if (--jsonFile.refCount == 0)
+			{
+				jsonFiles.remove(jsonFile.path);
+				if (jsonFiles.isEmpty())
+				{
+					reloadExecutor.shutdown();
+					reloadExecutor = null;
+				}
+			}
+		}
+	}
+
+	private final Map<AttributeFqn, SharedJsonFile> jsonFilesByAttribute;
+	private final Set<AttributeDesignatorType> providedAttributes;
+	private final long reloadCheckIntervalNanos;
+	private final AtomicBoolean closed = new AtomicBoolean(false);
+
+	private JsonFileAttributeProvider(final JsonFileAttributeProviderDescriptor conf, final EnvironmentProperties environmentProperties) throws IllegalArgumentException
+	{
+		super(conf.getId());
+		final long reloadCheckIntervalMillis = conf.getReloadCheckIntervalMillis().longValueExact();
+		this.reloadCheckIntervalNanos = TimeUnit.MILLISECONDS.toNanos(reloadCheckIntervalMillis);
+		final Map<AttributeFqn, SharedJsonFile> mutableJsonFilesByAttribute = new HashMap<>();
+		final Set<AttributeDesignatorType> mutableProvidedAttributes = new HashSet<>();
+		final List<SharedJsonFile> acquiredJsonFiles = new ArrayList<>();
+		try
+		{
+			for (final JsonFileAttribute attribute : conf.getAttribute())
+			{
+				final AttributeFqn attributeFqn = AttributeFqns.newInstance(attribute.getCategory(), Optional.ofNullable(attribute.getIssuer()), attribute.getId());
+				final Path path = Paths.get(environmentProperties.replacePlaceholders(attribute.getFile())).toAbsolutePath().normalize();
+				final SharedJsonFile jsonFile = SHARED_JSON_FILES.acquire(path);
+				acquiredJsonFiles.add(jsonFile);
+				if (mutableJsonFilesByAttribute.putIfAbsent(attributeFqn, jsonFile) != null)
+				{
+					throw new IllegalArgumentException(this + ": duplicate attribute: " + attributeFqn);
+				}
+
+				mutableProvidedAttributes.add(new AttributeDesignatorType(attribute.getCategory(), attribute.getId(), JsonValue.DATATYPE.getId(), attribute.getIssuer(), true));
+			}
+		}
+		catch (final IllegalArgumentException e)
+		{
+			acquiredJsonFiles.forEach(SHARED_JSON_FILES::release);
+			throw e;
+		}
+
+		this.jsonFilesByAttribute = Map.copyOf(mutableJsonFilesByAttribute);
+		this.providedAttributes = Set.copyOf(mutableProvidedAttributes);
+	}
+
+	@Override
+	public Set<AttributeDesignatorType> getProvidedAttributes()
+	{
+		return providedAttributes;
+	}
+
+	@SuppressWarnings("unchecked")
+	@Override
+	public <AV extends AttributeValue> AttributeBag<AV> get(final AttributeFqn attributeFqn, final Datatype<AV> datatype, final EvaluationContext context, final Optional<EvaluationContext> mdpContext)
+	        throws IndeterminateEvaluationException
+	{
+		final SharedJsonFile jsonFile = jsonFilesByAttribute.get(attributeFqn);
+		if (jsonFile == null)
+		{
+			throw new IndeterminateEvaluationException(this + ": attribute not supported: " + attributeFqn, XacmlStatusCode.MISSING_ATTRIBUTE.value());
+		}
+
+		if (!datatype.equals(JsonValue.DATATYPE))
+		{
+			throw new IndeterminateEvaluationException(this + ": requested datatype (" + datatype + ") of attribute " + attributeFqn + " != provided (" + JsonValue.DATATYPE + ")", XacmlStatusCode.MISSING_ATTRIBUTE.value());
+		}
+
+		return (AttributeBag<AV>) jsonFile.get(reloadCheckIntervalNanos);
+	}
+
+	@Override
+	public void close()
+	{
+		// files released once only
+		if (closed.compareAndSet(false, true))
+		{
+			jsonFilesByAttribute.values().forEach(SHARED_JSON_FILES::release);
+		}
+	}
+
+	/**
+	 * {@link JsonFileAttributeProvider} factory
+	 */
+	public static final class Factory extends CloseableNamedAttributeProvider.FactoryBuilder<JsonFileAttributeProviderDescriptor>
+	{
+		@Override
+		public Class<JsonFileAttributeProviderDescriptor> getJaxbClass()
+		{
+			return JsonFileAttributeProviderDescriptor.class;
+		}
+
+		@Override
+		public DependencyAwareFactory getInstance(final JsonFileAttributeProviderDescriptor conf, final EnvironmentProperties environmentProperties) throws IllegalArgumentException
+		{
+			return new DependencyAwareFactory()
+			{
+
+				@Override
+				public Set<AttributeDesignatorType> getDependencies()
+				{
+					// no dependency
+					return Collections.emptySet();
+				}
+
+				@Override
+				public CloseableNamedAttributeProvider getInstance(final AttributeValueFactoryRegistry attributeValueFactories, final NamedAttributeProvider dependencyAttributeProvider)
+				{
+					return new JsonFileAttributeProvider(conf, environmentProperties);
+				}
+			};
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2024 THALES.
+ * Copyright 2012-2026 THALES.
  *
  * This file is part of AuthzForce CE.
  *
@@ -20,14 +20,18 @@ package org.ow2.authzforce.pdp.ext.jsonpath;
 import java.math.BigInteger;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Deque;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
-import java.util.function.BiFunction;
+import java.util.stream.Collectors;
 
 import com.google.common.base.Preconditions;
-import com.jayway.jsonpath.JsonPath;
+import com.jayway.jsonpath.InvalidPathException;
 import com.jayway.jsonpath.PathNotFoundException;
+import org.ow2.authzforce.core.pdp.api.EvaluationContext;
 import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
 import org.ow2.authzforce.core.pdp.api.expression.Expression;
 import org.ow2.authzforce.core.pdp.api.expression.Expressions;
@@ -48,6 +52,7 @@ import org.ow2.authzforce.core.pdp.api.value.IntegerValue;
 import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
 import org.ow2.authzforce.core.pdp.api.value.StringParseableValue;
 import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
 import org.ow2.authzforce.xacml.identifiers.XacmlStatusCode;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -64,96 +69,341 @@ public final class JsonPathFunctions
 		// nothing, hide constructor
 	}
 
-	private static <AV extends AttributeValue> Bag<AV> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging, AttributeDatatype<AV> elementDatatype, java.util.function.Function<Object, AV> converter)
+	/*
+	 * Minimum size of an input bag of JSON values for the JSONPath to be evaluated in parallel on the bag elements by the *-from-json-path-over-bag functions. Parallel evaluation is disabled if
+	 * the system property is undefined or not a strictly positive integer. The system property is read when the function is instantiated.
+	 */
+	private static final String PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME = "org.ow2.authzforce.pdp.ext.jsonpath.parallelEvalMinBagSize";
+
+	private static final BagDatatype<JsonValue> JSON_BAG_DATATYPE = JsonValue.DATATYPE.getBagDatatype();
+
+	private static final java.util.function.Function<Object, BooleanValue> BOOLEAN_CONVERTER = o -> o instanceof Boolean b ? BooleanValue.valueOf(b) : null;
+
+	private static final java.util.function.Function<Object, DoubleValue> DOUBLE_CONVERTER = o -> o instanceof Double d ? new DoubleValue(d) : null;
+
+	private static final java.util.function.Function<Object, IntegerValue> INTEGER_CONVERTER = o -> {
+		if (o instanceof Short s)
+		{
+			return IntegerValue.valueOf(s.intValue());
+		}
+
+		if (o instanceof Integer i)
+		{
+			return IntegerValue.valueOf(i);
+		}
+
+		if (o instanceof Long l)
+		{
+			return IntegerValue.valueOf(l);
+		}
+
+		if(o instanceof BigInteger b)
+		{
+			return new IntegerValue(new ArbitrarilyBigInteger(b));
+		}
+
+		return null;
+	};
+
+	private static final java.util.function.Function<Object, StringValue> STRING_CONVERTER = o -> o instanceof String s ? new StringValue(s) : null;
+
+	/**
+	 * Pre-compiles the JSONPath argument if it is constant/literal
+	 *
+	 * @param jsonPathArgExpression JSONPath argument expression
+	 * @return the compiled JSONPath if {@code jsonPathArgExpression} is constant, else empty (JSONPath dependent on request context attributes, therefore cannot be compiled in advance)
+	 */
+	private static Optional<IndexableJsonPath> compileIfConstant(final Expression<?> jsonPathArgExpression)
+	{
+		return jsonPathArgExpression.getValue().map(jsonPathAttVal -> IndexableJsonPath.compile(StandardDatatypes.STRING.cast(jsonPathAttVal).getUnderlyingValue()));
+	}
+
+	private static String toStringForLogging(final Object o)
+	{
+		return (o == null ? "null" : o.getClass().toString()).replaceAll("[\r\n]", "");
+	}
+
+	private static void logInvalidListResult(final Object result, final String jsonPathForLogging, final AttributeDatatype<?> elementDatatype)
+	{
+		if (LOGGER.isWarnEnabled())
+		{
+			LOGGER.warn("Evaluation of JSONPath '{}' returned a list with an invalid value type: expected: {}; actual: {}", jsonPathForLogging.replaceAll("[\r\n]", ""), elementDatatype.getInstanceClass().toString().replaceAll("[\r\n]", ""), toStringForLogging(result));
+		}
+	}
+
+	/**
+	 * Adds the (valid) values returned by a JSONPath evaluation to a collection; invalid values - not convertible to the expected datatype - are ignored (a warning is logged)
+	 *
+	 * @return false iff the JSONPath evaluation returned a single value (not a list) that is not valid
+	 */
+	private static <AV extends AttributeValue> boolean addJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging, final AttributeDatatype<AV> elementDatatype, final java.util.function.Function<Object, AV> converter, final Collection<AV> out)
 	{
 		if (jsonPathEvalResult instanceof List<?> results)
 		{
-			final List<AV> returnedList = new ArrayList<>();
 			for (final Object result : results)
 			{
 				// returns null if result is not convertible
 				final AV bagElement = converter.apply(result);
 				if (bagElement == null)
 				{
-					if(LOGGER.isWarnEnabled())
-					{
-						// Invalid value
-						LOGGER.warn("Evaluation of JSONPath '{}' returned a list with an invalid value type: expected: {}; actual: {}", jsonPathForLogging.replaceAll("[\r\n]", ""), elementDatatype.getInstanceClass().toString().replaceAll("[\r\n]", ""), result.getClass().toString().replaceAll("[\r\n]", ""));
-					}
+					// Invalid value
+					logInvalidListResult(result, jsonPathForLogging, elementDatatype);
 				} else {
-					returnedList.add(bagElement);
+					out.add(bagElement);
 				}
 			}
 
-			return Bags.newBag(elementDatatype, returnedList);
+			return true;
 		}
+
 		// jsonPathEvalResult is a single value
 		// returns null if result is not convertible
 		final AV bagElement = converter.apply(jsonPathEvalResult);
 		if (bagElement == null)
+		{
+			return false;
+		}
+
+		out.add(bagElement);
+		return true;
+	}
+
+	private static <AV extends AttributeValue> Bag<AV> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging, AttributeDatatype<AV> elementDatatype, java.util.function.Function<Object, AV> converter)
+	{
+		return newBagFromJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, elementDatatype, converter, NO_LIMIT);
+	}
+
+	/**
+	 * Same as {@link #newBagFromJsonPathEvalResult(Object, String, AttributeDatatype, java.util.function.Function)} but keeps only the first {@code maxResults} valid values (all if {@code maxResults == NO_LIMIT})
+	 */
+	private static <AV extends AttributeValue> Bag<AV> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging, AttributeDatatype<AV> elementDatatype, java.util.function.Function<Object, AV> converter, final int maxResults)
+	{
+		final List<AV> allValues = new ArrayList<>();
+		if (!addJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, elementDatatype, converter, allValues))
 		{
 			// Invalid value
-			return Bags.empty(elementDatatype, new IndeterminateEvaluationException("Evaluation of JSONPath '" + jsonPathForLogging + "' returned an invalid value type: expected: " + elementDatatype.getInstanceClass() + "; actual: " + jsonPathEvalResult.getClass(), XacmlStatusCode.PROCESSING_ERROR.value()));
+			return Bags.empty(elementDatatype, new IndeterminateEvaluationException("Evaluation of JSONPath '" + jsonPathForLogging + "' returned an invalid value type: expected: " + elementDatatype.getInstanceClass() + "; actual: " + toStringForLogging(jsonPathEvalResult), XacmlStatusCode.PROCESSING_ERROR.value()));
 		}
 
-		// Valid value
-		return Bags.singleton(elementDatatype, bagElement);
+		final List<AV> returnedList = maxResults == NO_LIMIT || allValues.size() <= maxResults ? allValues : allValues.subList(0, maxResults);
+
+		// Valid value(s)
+		return returnedList.size() == 1 ? Bags.singleton(elementDatatype, returnedList.get(0)) : Bags.newBag(elementDatatype, returnedList);
 	}
 
 	/**
-	 * Non-standard XACML function that evaluates a JSON path against a JSON object/array: {@code json-path(JSON, JsonPath)} -> bag.
+	 * Function call with a constant result (value or Indeterminate), i.e. a function call with constant arguments evaluated once and for all. An Indeterminate result - exception or empty bag with a
+	 * reason why empty - is returned as a new exception/bag on each evaluation (not shared by concurrent evaluations), the constant one being the cause.
 	 */
-	private static abstract class JsonPathFunction<RETURN_BAG_ELEMENT_TYPE extends StringParseableValue<?>> extends MultiParameterTypedFirstOrderFunction<Bag<RETURN_BAG_ELEMENT_TYPE>>
+	private static final class ConstantFirstOrderFunctionCall<RETURN extends Value> implements FirstOrderFunctionCall<RETURN>
+	{
+		private final Datatype<RETURN> returnType;
+
+		// null iff indeterminate != null
+		private final RETURN result;
+		private final IndeterminateEvaluationException indeterminate;
+		// not null iff result is an empty bag with a reason why empty (Indeterminate bag)
+		private final Bag<?> indeterminateBag;
+
+		private ConstantFirstOrderFunctionCall(final Datatype<RETURN> returnType, final RETURN result, final IndeterminateEvaluationException indeterminate)
+		{
+			assert returnType != null && (result == null) != (indeterminate == null);
+			this.returnType = returnType;
+			this.result = result;
+			this.indeterminate = indeterminate;
+			this.indeterminateBag = result instanceof Bag<?> bag && bag.getReasonWhyEmpty() != null ? bag : null;
+		}
+
+		private static IndeterminateEvaluationException newIndeterminate(final IndeterminateEvaluationException cause)
+		{
+			return new IndeterminateEvaluationException(cause.getMessage(), cause.getStatus().getStatusCode().getValue(), cause);
+		}
+
+		private static <AV extends AttributeValue> Bag<AV> newIndeterminateBag(final Bag<AV> cause)
+		{
+			return Bags.empty(cause.getElementDatatype(), newIndeterminate(cause.getReasonWhyEmpty()));
+		}
+
+		@Override
+		public Datatype<RETURN> getReturnType()
+		{
+			return returnType;
+		}
+
+		@Override
+		public RETURN evaluate(final EvaluationContext context, final Optional<EvaluationContext> mdpContext) throws IndeterminateEvaluationException
+		{
+			if (indeterminate != null)
+			{
+				// new exception for each evaluation (not shared by concurrent evaluations), the constant one being the cause
+				throw newIndeterminate(indeterminate);
+			}
+
+			if (indeterminateBag != null)
+			{
+				// same for the reason why the bag is empty
+				return returnType.cast(newIndeterminateBag(indeterminateBag));
+			}
+
+			return result;
+		}
+
+		@Override
+		public RETURN evaluate(final EvaluationContext context, final Optional<EvaluationContext> mdpContext, final AttributeValue... remainingArgs) throws IndeterminateEvaluationException
+		{
+			// no remaining arg expected (see foldIfConstant)
+			return evaluate(context, mdpContext);
+		}
+
+		@Override
+		public RETURN evaluate(final EvaluationContext context, final Optional<EvaluationContext> mdpContext, final boolean checkRemainingArgTypes, final AttributeValue... remainingArgs)
+		        throws IndeterminateEvaluationException
+		{
+			// no remaining arg expected (see foldIfConstant)
+			return evaluate(context, mdpContext);
+		}
+	}
+
+	/**
+	 * Evaluates a function call once and for all at initialization time (policy loading) if all its arguments are constant, e.g. a JSON path against a JSON value defined in the policy
+	 *
+	 * @param call function call
+	 * @param argExpressions the function call's argument expressions
+	 * @param remainingArgTypes types of the remaining arguments to be passed at evaluation time (e.g. by higher-order functions); if any, the call is not constant
+	 * @return a function call returning the constant result - value or Indeterminate - of {@code call} if all arguments are constant, else {@code call}
+	 */
+	private static <RETURN extends Value> FirstOrderFunctionCall<RETURN> foldIfConstant(final FirstOrderFunctionCall<RETURN> call, final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes)
+	{
+		if (remainingArgTypes.length > 0 || !argExpressions.stream().allMatch(argExpression -> argExpression.getValue().isPresent()))
+		{
+			return call;
+		}
+
+		try
+		{
+			return new ConstantFirstOrderFunctionCall<>(call.getReturnType(), call.evaluate(null, Optional.empty()), null);
+		}
+		catch (final IndeterminateEvaluationException e)
+		{
+			LOGGER.debug("Function call with constant arguments evaluated at initialization time to Indeterminate", e);
+			return new ConstantFirstOrderFunctionCall<>(call.getReturnType(), null, e);
+		}
+		catch (final RuntimeException e)
+		{
+			// not folded: same error at evaluation time as before
+			LOGGER.debug("Function call with constant arguments could not be evaluated at initialization time", e);
+			return call;
+		}
+	}
+
+	/**
+	 * Converts the limit argument of a JSONPath function to a maximum number of results
+	 *
+	 * @param limit limit argument
+	 * @return maximum number of results (Integer.MAX_VALUE if {@code limit} is greater)
+	 * @throws IllegalArgumentException if {@code limit} is not strictly positive
+	 */
+	private static int toMaxResults(final IntegerValue limit) throws IllegalArgumentException
 	{
+		Preconditions.checkArgument(limit.compareTo(IntegerValue.valueOf(0)) > 0, "Invalid limit (arg #2) to json-path function: " + limit + " (expected: strictly positive integer)");
+		return limit.compareTo(IntegerValue.valueOf(Integer.MAX_VALUE)) > 0 ? Integer.MAX_VALUE : limit.intValueExact();
+	}
+
+	/*
+	 * Maximum number of results of a JSONPath function call without limit
+	 */
+	private static final int NO_LIMIT = 0;
+
+	/**
+	 * Limit on the number of results of a JSONPath function
+	 */
+	private enum ResultLimit
+	{
+		/**
+		 * No limit
+		 */
+		NONE("-from-json-path"),
 
-		private final BagDatatype<RETURN_BAG_ELEMENT_TYPE> returnType;
+		/**
+		 * First result only
+		 */
+		FIRST("-first-from-json-path"),
 
 		/**
-		 * Default constructor for the json path function that may return a bag of strings, integers, booleans, etc. and takes parameters: JSON object/array, JSON path (string)
+		 * Limit given by the third argument (integer)
 		 */
-		public JsonPathFunction(final String returnBagElementTypeShortName, final BagDatatype<RETURN_BAG_ELEMENT_TYPE> returnType)
+		ARG("-from-json-path-limit");
+
+		private final String functionIdSuffix;
+
+		ResultLimit(final String functionIdSuffix)
 		{
-			super(Function.AUTHZFORCE_EXTENSION_PREFIX + returnBagElementTypeShortName + "-from-json-path", returnType, false, Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING));
-			this.returnType = returnType;
+			this.functionIdSuffix = functionIdSuffix;
 		}
+	}
+
+	/**
+	 * Non-standard XACML function that evaluates a JSON path against a JSON object/array: {@code json-path(JSON, JsonPath)} -> bag, {@code json-path-limit(JSON, JsonPath, limit)} -> bag of at most
+	 * {@code limit} values, or {@code first-json-path(JSON, JsonPath)} -> bag of at most one value (first match).
+	 * <p>
+	 * With a limit (strictly positive integer), or for the first-match variant (limit = 1), the JSON traversal of an indefinite JSON path stops as soon as this number of values of the expected type are
+	 * found, and values of other types are skipped. A definite JSON path is evaluated as without limit (e.g. Indeterminate if the value is not of the expected type), the limit applying to the items if
+	 * the result is a JSON array.
+	 */
+	private static abstract class JsonPathFunction<RETURN_BAG_ELEMENT_TYPE extends StringParseableValue<?>> extends MultiParameterTypedFirstOrderFunction<Bag<RETURN_BAG_ELEMENT_TYPE>>
+	{
+		private final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType;
+		private final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter;
+		private final ResultLimit resultLimit;
 
-		protected abstract Bag<RETURN_BAG_ELEMENT_TYPE> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForErrorLogging);
+		/**
+		 * Default constructor for the json path function that may return a bag of strings, integers, booleans, etc. and takes parameters: JSON object/array, JSON path (string), and limit (integer)
+		 * iff {@code resultLimit == ResultLimit.ARG}
+		 */
+		public JsonPathFunction(final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType, final String returnBagElementTypeShortName, final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter, final ResultLimit resultLimit)
+		{
+			super(Function.AUTHZFORCE_EXTENSION_PREFIX + returnBagElementTypeShortName + resultLimit.functionIdSuffix, returnBagElementType.getBagDatatype(), false,
+			        resultLimit == ResultLimit.ARG ? Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING, StandardDatatypes.INTEGER) : Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING));
+			this.returnBagElementType = returnBagElementType;
+			this.converter = converter;
+			this.resultLimit = resultLimit;
+		}
 
 		@Override
 		public FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> newCall(final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes) throws IllegalArgumentException
 		{
-			assert argExpressions != null && argExpressions.size() == 2;
-			final Expression<?> argExp1 = argExpressions.get(1);
-			final BiFunction<JsonValue, Deque<AttributeValue>, Bag<RETURN_BAG_ELEMENT_TYPE>> jsonPathEvalFunction;
-			BiFunction<JsonValue, Deque<AttributeValue>, Bag<RETURN_BAG_ELEMENT_TYPE>> _jsonPathEvalFunction;
+			assert argExpressions != null;
 
 			/*
 			 * Check whether first arg - JSONPath - is constant/literal, in which case we can pre-compile it for optimisation purposes.
 			 */
-			try
+			final Optional<IndexableJsonPath> constantJsonPath = compileIfConstant(argExpressions.get(1));
+
+			/*
+			 * Maximum number of results, if known at this point (no limit arg or constant limit)
+			 */
+			final Optional<Integer> constantMaxResults;
+			if (resultLimit == ResultLimit.NONE)
 			{
-				final StringValue jsonPathAttVal = Expressions.eval(argExp1, null, Optional.empty(), StandardDatatypes.STRING);
-				final JsonPath compiledJsonPath = JsonPath.compile(jsonPathAttVal.getUnderlyingValue());
-				_jsonPathEvalFunction = (jsonArg, nextArgs) -> {
-					final Object result = compiledJsonPath.read((Object) jsonArg.getJsonPathReadContext().json(), JsonValue.JSON_PROCESSOR_CONFIGURATION);
-					return newBagFromJsonPathEvalResult(result, compiledJsonPath.getPath());
-				};
+				constantMaxResults = Optional.of(NO_LIMIT);
 			}
-			catch (final IndeterminateEvaluationException e)
+			else if (resultLimit == ResultLimit.FIRST)
 			{
-				// JSONPath is not constant but dependent on request context attributes, therefore cannot be compiled in advance.
-				// The JSONPath is the second argument
-				_jsonPathEvalFunction = (jsonArg, nextArgs) -> {
-					final AttributeValue arg1 = nextArgs.poll();
-					Preconditions.checkArgument(arg1 != null, "Missing arg #1 (JSON path) to json-path function");
-					final String jsonPath = StandardDatatypes.STRING.cast(arg1).getUnderlyingValue();
-					final Object result = jsonArg.getJsonPathReadContext().read(jsonPath);
-					return newBagFromJsonPathEvalResult(result, jsonPath);
-				};
+				constantMaxResults = Optional.of(1);
+			}
+			else
+			{
+				// limit arg: constant (literal) limit validated at initialization time
+				constantMaxResults = argExpressions.size() == 3 ? argExpressions.get(2).getValue().map(limit -> toMaxResults(StandardDatatypes.INTEGER.cast(limit))) : Optional.empty();
 			}
 
-			jsonPathEvalFunction = _jsonPathEvalFunction;
-			return new BaseFirstOrderFunctionCall.EagerMultiPrimitiveTypeEval<>(functionSignature, argExpressions, remainingArgTypes)
+			return newCall(argExpressions, remainingArgTypes, constantJsonPath, constantMaxResults);
+		}
+
+		private FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> newCall(final List<Expression<?>> argExpressions, final Datatype<?>[] remainingArgTypes, final Optional<IndexableJsonPath> constantJsonPath,
+		        final Optional<Integer> constantMaxResults)
+		{
+			final FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> call = new BaseFirstOrderFunctionCall.EagerMultiPrimitiveTypeEval<>(functionSignature, argExpressions, remainingArgTypes)
 			{
 
 				@Override
@@ -163,17 +413,75 @@ public final class JsonPathFunctions
 					final AttributeValue arg0 = args.poll();
 					Preconditions.checkArgument(arg0 != null, "Missing arg #0 (JSON array/object) to json-path function");
 					final JsonValue jsonAttVal = (JsonValue) arg0;
+					// second arg is the JSONPath (ignored if constant, i.e. pre-compiled)
+					final AttributeValue arg1 = args.poll();
+					Preconditions.checkArgument(arg1 != null, "Missing arg #1 (JSON path) to json-path function");
+					final int maxResults;
+					if (constantMaxResults.isPresent())
+					{
+						maxResults = constantMaxResults.get();
+					}
+					else
+					{
+						final AttributeValue arg2 = args.poll();
+						Preconditions.checkArgument(arg2 != null, "Missing arg #2 (limit) to json-path function");
+						try
+						{
+							maxResults = toMaxResults(StandardDatatypes.INTEGER.cast(arg2));
+						}
+						catch (final IllegalArgumentException e)
+						{
+							return Bags.empty(returnBagElementType, new IndeterminateEvaluationException(e.getMessage(), XacmlStatusCode.PROCESSING_ERROR.value()));
+						}
+					}
+
 					try
 					{
-						return jsonPathEvalFunction.apply(jsonAttVal, args);
+						if (maxResults == NO_LIMIT)
+						{
+							if (constantJsonPath.isPresent())
+							{
+								final IndexableJsonPath compiledJsonPath = constantJsonPath.get();
+								return newBagFromJsonPathEvalResult(compiledJsonPath.read(jsonAttVal), compiledJsonPath.getPath(), returnBagElementType, converter);
+							}
+
+							// JSONPath is not constant but dependent on request context attributes, therefore cannot be compiled in advance.
+							final String jsonPath = StandardDatatypes.STRING.cast(arg1).getUnderlyingValue();
+							return newBagFromJsonPathEvalResult(jsonAttVal.getJsonPathReadContext().read(jsonPath), jsonPath, returnBagElementType, converter);
+						}
+
+						final IndexableJsonPath compiledJsonPath = constantJsonPath.isPresent() ? constantJsonPath.get() : IndexableJsonPath.compile(StandardDatatypes.STRING.cast(arg1).getUnderlyingValue());
+						if (compiledJsonPath.isDefinite())
+						{
+							// single result, i.e. no JSON traversal to stop: same as without limit (Indeterminate if invalid value), the limit applying to the items of a JSON array
+							return newBagFromJsonPathEvalResult(compiledJsonPath.read(jsonAttVal), compiledJsonPath.getPath(), returnBagElementType, converter, maxResults);
+						}
+
+						// invalid values in the list are skipped with a warning, like without limit, so that the limit does not change which values are valid
+						final List<RETURN_BAG_ELEMENT_TYPE> results = compiledJsonPath.read(jsonAttVal, result -> {
+							final RETURN_BAG_ELEMENT_TYPE bagElement = converter.apply(result);
+							if (bagElement == null)
+							{
+								logInvalidListResult(result, compiledJsonPath.getPath(), returnBagElementType);
+							}
+
+							return bagElement;
+						}, maxResults);
+						return results.size() == 1 ? Bags.singleton(returnBagElementType, results.get(0)) : Bags.newBag(returnBagElementType, results);
+					}
+					catch (final PathNotFoundException e)
+					{
+						return Bags.empty(returnBagElementType, new IndeterminateEvaluationException("Error evaluating JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
 					}
-					catch (PathNotFoundException e)
+					catch (final InvalidPathException e)
 					{
-						return Bags.empty(returnType.getElementType(), new IndeterminateEvaluationException("Error evaluating JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
+						// non-constant JSONPath (a constant one is compiled at initialization time)
+						return Bags.empty(returnBagElementType, new IndeterminateEvaluationException("Invalid JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
 					}
 				}
 
 			};
+			return foldIfConstant(call, argExpressions, remainingArgTypes);
 		}
 	}
 
@@ -183,20 +491,12 @@ public final class JsonPathFunctions
 	 */
 	public static final class BooleansFromJsonPathFunction extends JsonPathFunction<BooleanValue>
 	{
-		private static final java.util.function.Function<Object, BooleanValue> CONVERTER = o -> o instanceof Boolean b ? BooleanValue.valueOf(b) : null;
-
 		/**
 		 * Constructor
 		 */
 		public BooleansFromJsonPathFunction()
 		{
-			super("boolean", StandardDatatypes.BOOLEAN.getBagDatatype());
-		}
-
-		@Override
-		protected Bag<BooleanValue> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging)
-		{
-			return JsonPathFunctions.newBagFromJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, StandardDatatypes.BOOLEAN, CONVERTER);
+			super(StandardDatatypes.BOOLEAN, "boolean", BOOLEAN_CONVERTER, ResultLimit.NONE);
 		}
 	}
 
@@ -206,21 +506,13 @@ public final class JsonPathFunctions
 	 */
 	public static final class DoublesFromJsonPathFunction extends JsonPathFunctions.JsonPathFunction<DoubleValue>
 	{
-		private static final java.util.function.Function<Object, DoubleValue> CONVERTER = o -> o instanceof Double d ? new DoubleValue(d) : null;
-
 		/**
 		 * Constructor
 		 */
 		public DoublesFromJsonPathFunction()
-		{
-			super("double", StandardDatatypes.DOUBLE.getBagDatatype());
-		}
-
-		@Override
-		protected Bag<DoubleValue> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging)
 		{
 			// TODO: support BigDecimal as input too?
-			return JsonPathFunctions.newBagFromJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, StandardDatatypes.DOUBLE, CONVERTER);
+			super(StandardDatatypes.DOUBLE, "double", DOUBLE_CONVERTER, ResultLimit.NONE);
 		}
 	}
 
@@ -231,66 +523,1045 @@ public final class JsonPathFunctions
 	 */
 	public static final class IntegersFromJsonPathFunction extends JsonPathFunction<IntegerValue>
 	{
+		/**
+		 * Constructor
+		 */
+		public IntegersFromJsonPathFunction()
+		{
+			super(StandardDatatypes.INTEGER, "integer", INTEGER_CONVERTER, ResultLimit.NONE);
+		}
+	}
 
-		private static final java.util.function.Function<Object, IntegerValue> CONVERTER = o -> {
-			if (o instanceof Short s)
-			{
-				return IntegerValue.valueOf(s.intValue());
-			}
+	/**
+	 * Implements the string-from-json-path function that evaluates a JSON path against a JSON object/array and returns a list of string values as a result.
+	 * If the JSONPath evaluation does not return any string, an empty bag is returned.
+	 */
+	public static final class StringsFromJsonPathFunction extends JsonPathFunction<StringValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public StringsFromJsonPathFunction()
+		{
+			super(StandardDatatypes.STRING, "string", STRING_CONVERTER, ResultLimit.NONE);
+		}
+	}
 
-			if (o instanceof Integer i)
-			{
-				return IntegerValue.valueOf(i);
-			}
+	/**
+	 * Implements the boolean-first-from-json-path function that evaluates a JSON path against a JSON object/array and returns the first boolean value found (singleton bag), stopping the JSON
+	 * traversal there. If the JSONPath evaluation does not return any boolean, an empty bag is returned.
+	 */
+	public static final class BooleanFirstFromJsonPathFunction extends JsonPathFunction<BooleanValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public BooleanFirstFromJsonPathFunction()
+		{
+			super(StandardDatatypes.BOOLEAN, "boolean", BOOLEAN_CONVERTER, ResultLimit.FIRST);
+		}
+	}
 
-			if (o instanceof Long l)
-			{
-				return IntegerValue.valueOf(l);
-			}
+	/**
+	 * Implements the double-first-from-json-path function that evaluates a JSON path against a JSON object/array and returns the first double value found (singleton bag), stopping the JSON traversal
+	 * there. If the JSONPath evaluation does not return any double, an empty bag is returned.
+	 */
+	public static final class DoubleFirstFromJsonPathFunction extends JsonPathFunction<DoubleValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public DoubleFirstFromJsonPathFunction()
+		{
+			super(StandardDatatypes.DOUBLE, "double", DOUBLE_CONVERTER, ResultLimit.FIRST);
+		}
+	}
 
-			if(o instanceof BigInteger b)
-			{
-				return new IntegerValue(new ArbitrarilyBigInteger(b));
-			}
+	/**
+	 * Implements the integer-first-from-json-path function that evaluates a JSON path against a JSON object/array and returns the first integer value found (singleton bag), stopping the JSON
+	 * traversal there. If the JSONPath evaluation does not return any integer, an empty bag is returned.
+	 */
+	public static final class IntegerFirstFromJsonPathFunction extends JsonPathFunction<IntegerValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegerFirstFromJsonPathFunction()
+		{
+			super(StandardDatatypes.INTEGER, "integer", INTEGER_CONVERTER, ResultLimit.FIRST);
+		}
+	}
 
-			return null;
-		};
+	/**
+	 * Implements the string-first-from-json-path function that evaluates a JSON path against a JSON object/array and returns the first string value found (singleton bag), stopping the JSON traversal
+	 * there. If the JSONPath evaluation does not return any string, an empty bag is returned.
+	 */
+	public static final class StringFirstFromJsonPathFunction extends JsonPathFunction<StringValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public StringFirstFromJsonPathFunction()
+		{
+			super(StandardDatatypes.STRING, "string", STRING_CONVERTER, ResultLimit.FIRST);
+		}
+	}
 
+	/**
+	 * Implements the boolean-from-json-path-limit function that evaluates a JSON path against a JSON object/array and returns a list of at most N boolean values, N being the third parameter, stopping the
+	 * JSON traversal as soon as N boolean values are found. If the JSONPath evaluation does not return any boolean, an empty bag is returned.
+	 */
+	public static final class BooleansFromJsonPathLimitFunction extends JsonPathFunction<BooleanValue>
+	{
 		/**
 		 * Constructor
 		 */
-		public IntegersFromJsonPathFunction()
+		public BooleansFromJsonPathLimitFunction()
 		{
-			super("integer", StandardDatatypes.INTEGER.getBagDatatype());
+			super(StandardDatatypes.BOOLEAN, "boolean", BOOLEAN_CONVERTER, ResultLimit.ARG);
 		}
+	}
 
-		@Override
-		protected Bag<IntegerValue> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging)
+	/**
+	 * Implements the double-from-json-path-limit function that evaluates a JSON path against a JSON object/array and returns a list of at most N double values, N being the third parameter, stopping the
+	 * JSON traversal as soon as N double values are found. If the JSONPath evaluation does not return any double, an empty bag is returned.
+	 */
+	public static final class DoublesFromJsonPathLimitFunction extends JsonPathFunction<DoubleValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public DoublesFromJsonPathLimitFunction()
 		{
-			return JsonPathFunctions.newBagFromJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, StandardDatatypes.INTEGER, CONVERTER);
+			super(StandardDatatypes.DOUBLE, "double", DOUBLE_CONVERTER, ResultLimit.ARG);
 		}
 	}
 
 	/**
-	 * Implements the string-from-json-path function that evaluates a JSON path against a JSON object/array and returns a list of string values as a result.
-	 * If the JSONPath evaluation does not return any string, an empty bag is returned.
+	 * Implements the integer-from-json-path-limit function that evaluates a JSON path against a JSON object/array and returns a list of at most N integer values, N being the third parameter, stopping the
+	 * JSON traversal as soon as N integer values are found. If the JSONPath evaluation does not return any integer, an empty bag is returned.
 	 */
-	public static final class StringsFromJsonPathFunction extends JsonPathFunction<StringValue>
+	public static final class IntegersFromJsonPathLimitFunction extends JsonPathFunction<IntegerValue>
 	{
-		private static final java.util.function.Function<Object, StringValue> CONVERTER = o -> o instanceof String s ? new StringValue(s) : null;
+		/**
+		 * Constructor
+		 */
+		public IntegersFromJsonPathLimitFunction()
+		{
+			super(StandardDatatypes.INTEGER, "integer", INTEGER_CONVERTER, ResultLimit.ARG);
+		}
+	}
 
+	/**
+	 * Implements the string-from-json-path-limit function that evaluates a JSON path against a JSON object/array and returns a list of at most N string values, N being the third parameter, stopping the
+	 * JSON traversal as soon as N string values are found. If the JSONPath evaluation does not return any string, an empty bag is returned.
+	 */
+	public static final class StringsFromJsonPathLimitFunction extends JsonPathFunction<StringValue>
+	{
 		/**
 		 * Constructor
 		 */
-		public StringsFromJsonPathFunction()
+		public StringsFromJsonPathLimitFunction()
 		{
-			super("string", StandardDatatypes.STRING.getBagDatatype());
+			super(StandardDatatypes.STRING, "string", STRING_CONVERTER, ResultLimit.ARG);
 		}
+	}
 
-		@Override
-		protected Bag<StringValue> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final String jsonPathForLogging)
+	/**
+	 * Non-standard XACML function that evaluates a JSON path against a JSON object/array and returns the matching JSON objects/arrays: {@code json-from-json-path(JSON, JsonPath)} -> bag(JSON). The
+	 * returned JSON values share the matching subtrees of the input JSON value's parsed JSON (no serialization/parsing), their JSON text being serialized only if requested (see
+	 * {@link JsonValue#printXML()}). This allows to evaluate the common prefix of many JSON paths only once, and the remaining (shorter) JSON paths against the resulting JSON values.
+	 * <p>
+	 * If the JSON path is definite, the result is the matching JSON object/array (singleton bag), else each matching JSON object/array (other JSON values are ignored).
+	 */
+	public static final class JsonFromJsonPathFunction extends MultiParameterTypedFirstOrderFunction<Bag<JsonValue>>
+	{
+		/**
+		 * Constructor
+		 */
+		public JsonFromJsonPathFunction()
+		{
+			super(Function.AUTHZFORCE_EXTENSION_PREFIX + "json-from-json-path", JSON_BAG_DATATYPE, false, Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING));
+		}
+
+		private static JsonValue toJsonValue(final Object json)
+		{
+			return json instanceof Map<?, ?> || json instanceof List<?> ? JsonValue.fromParsedJson(json) : null;
+		}
+
+		private static Bag<JsonValue> newBagFromJsonPathEvalResult(final Object jsonPathEvalResult, final IndexableJsonPath jsonPath)
+		{
+			if (jsonPath.isDefinite())
+			{
+				final JsonValue jsonValue = toJsonValue(jsonPathEvalResult);
+				if (jsonValue == null)
+				{
+					return Bags.empty(JsonValue.DATATYPE, new IndeterminateEvaluationException(
+					        "Evaluation of JSONPath '" + jsonPath + "' returned an invalid value type: expected: JSON object/array; actual: " + toStringForLogging(jsonPathEvalResult), XacmlStatusCode.PROCESSING_ERROR.value()));
+				}
+
+				return Bags.singleton(JsonValue.DATATYPE, jsonValue);
+			}
+
+			final List<JsonValue> jsonValues = new ArrayList<>();
+			for (final Object result : (List<?>) jsonPathEvalResult)
+			{
+				final JsonValue jsonValue = toJsonValue(result);
+				if (jsonValue == null)
+				{
+					if (LOGGER.isWarnEnabled())
+					{
+						LOGGER.warn("Evaluation of JSONPath '{}' returned a list with an invalid value type: expected: JSON object/array; actual: {}", jsonPath.getPath().replaceAll("[\r\n]", ""), toStringForLogging(result));
+					}
+				}
+				else
+				{
+					jsonValues.add(jsonValue);
+				}
+			}
+
+			return Bags.newBag(JsonValue.DATATYPE, jsonValues);
+		}
+
+		@Override
+		public FirstOrderFunctionCall<Bag<JsonValue>> newCall(final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes) throws IllegalArgumentException
+		{
+			assert argExpressions != null && argExpressions.size() == 2;
+
+			/*
+			 * Check whether first arg - JSONPath - is constant/literal, in which case we can pre-compile it for optimisation purposes.
+			 */
+			final Optional<IndexableJsonPath> constantJsonPath = compileIfConstant(argExpressions.get(1));
+			final FirstOrderFunctionCall<Bag<JsonValue>> call = new BaseFirstOrderFunctionCall.EagerMultiPrimitiveTypeEval<>(functionSignature, argExpressions, remainingArgTypes)
+			{
+
+				@Override
+				protected Bag<JsonValue> evaluate(final Deque<AttributeValue> args)
+				{
+					// first arg is the JSON object/array
+					final AttributeValue arg0 = args.poll();
+					Preconditions.checkArgument(arg0 != null, "Missing arg #0 (JSON array/object) to json-from-json-path function");
+					// second arg is the JSONPath (ignored if constant, i.e. pre-compiled)
+					final AttributeValue arg1 = args.poll();
+					Preconditions.checkArgument(arg1 != null, "Missing arg #1 (JSON path) to json-from-json-path function");
+					final IndexableJsonPath jsonPath;
+					if (constantJsonPath.isPresent())
+					{
+						jsonPath = constantJsonPath.get();
+					}
+					else
+					{
+						try
+						{
+							jsonPath = IndexableJsonPath.compile(StandardDatatypes.STRING.cast(arg1).getUnderlyingValue());
+						}
+						catch (final InvalidPathException e)
+						{
+							return Bags.empty(JsonValue.DATATYPE, new IndeterminateEvaluationException("Invalid JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
+						}
+					}
+
+					try
+					{
+						return newBagFromJsonPathEvalResult(jsonPath.read((JsonValue) arg0), jsonPath);
+					}
+					catch (final PathNotFoundException e)
+					{
+						return Bags.empty(JsonValue.DATATYPE, new IndeterminateEvaluationException("Error evaluating JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
+					}
+				}
+
+			};
+			return foldIfConstant(call, argExpressions, remainingArgTypes);
+		}
+	}
+
+	/**
+	 * Non-standard XACML function that evaluates a JSON path against each JSON object/array in a bag: {@code json-path-over-bag(bag(JSON), JsonPath)} -> bag, i.e. the union (as multiset) of the
+	 * results of the evaluation on each JSON value. This is equivalent to - but more efficient than - applying the matching {@code *-from-json-path} function to each element of the bag with higher-order
+	 * functions: the JSONPath is compiled (once for all if constant) and applied in a single loop over the bag, with a single result buffer. If the JSONPath does not match a given JSON value, this JSON
+	 * value does not contribute any value to the result.
+	 * <p>
+	 * The evaluation is done in parallel on the bag elements if the bag size is greater than or equal to the value of the system property {@code org.ow2.authzforce.pdp.ext.jsonpath.parallelEvalMinBagSize}
+	 * when the function is instantiated (disabled by default), with a parallel stream, i.e. in the JVM-wide common {@link java.util.concurrent.ForkJoinPool} - shared with any other parallel stream in
+	 * the JVM, and sized with the system property {@code java.util.concurrent.ForkJoinPool.common.parallelism} - the request thread taking part in the evaluation. The results are in the same order
+	 * as with sequential evaluation.
+	 */
+	private static abstract class JsonPathOverBagFunction<RETURN_BAG_ELEMENT_TYPE extends StringParseableValue<?>> extends MultiParameterTypedFirstOrderFunction<Bag<RETURN_BAG_ELEMENT_TYPE>>
+	{
+		private final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType;
+		private final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter;
+		private final int parallelEvalMinBagSize;
+
+		/**
+		 * Default constructor for the json path function that may return a bag of strings, integers, booleans, etc. and takes parameters: bag of JSON objects/arrays, JSON path (string)
+		 */
+		public JsonPathOverBagFunction(final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType, final String returnBagElementTypeShortName, final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter)
+		{
+			super(Function.AUTHZFORCE_EXTENSION_PREFIX + returnBagElementTypeShortName + "-from-json-path-over-bag", returnBagElementType.getBagDatatype(), false, Arrays.asList(JSON_BAG_DATATYPE, StandardDatatypes.STRING));
+			this.returnBagElementType = returnBagElementType;
+			this.converter = converter;
+			this.parallelEvalMinBagSize = Integer.getInteger(PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME, 0);
+		}
+
+		private List<RETURN_BAG_ELEMENT_TYPE> eval(final IndexableJsonPath jsonPath, final JsonValue json, final List<RETURN_BAG_ELEMENT_TYPE> out)
+		{
+			final Object result;
+			try
+			{
+				result = jsonPath.read(json);
+			}
+			catch (final PathNotFoundException e)
+			{
+				// no match in this JSON value
+				return out;
+			}
+
+			if (!addJsonPathEvalResult(result, jsonPath.getPath(), returnBagElementType, converter, out) && LOGGER.isWarnEnabled())
+			{
+				LOGGER.warn("Evaluation of JSONPath '{}' returned an invalid value type: expected: {}; actual: {}", jsonPath.getPath().replaceAll("[\r\n]", ""), returnBagElementType.getInstanceClass().toString().replaceAll("[\r\n]", ""), toStringForLogging(result));
+			}
+
+			return out;
+		}
+
+		@Override
+		public FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> newCall(final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes) throws IllegalArgumentException
+		{
+			assert argExpressions != null && argExpressions.size() == 2;
+			final Expression<?> argExp0 = argExpressions.get(0);
+			final Expression<?> argExp1 = argExpressions.get(1);
+
+			/*
+			 * Check whether first arg - JSONPath - is constant/literal, in which case we can pre-compile it for optimisation purposes.
+			 */
+			final Optional<IndexableJsonPath> constantJsonPath = compileIfConstant(argExp1);
+			final FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> call = new BaseFirstOrderFunctionCall<>(functionSignature, argExpressions, remainingArgTypes)
+			{
+
+				@Override
+				public Bag<RETURN_BAG_ELEMENT_TYPE> evaluate(final EvaluationContext context, final Optional<EvaluationContext> mdpContext, final AttributeValue... remainingArgs) throws IndeterminateEvaluationException
+				{
+					final Bag<JsonValue> jsonBag;
+					try
+					{
+						jsonBag = Expressions.eval(argExp0, context, mdpContext, JSON_BAG_DATATYPE);
+					}
+					catch (final IndeterminateEvaluationException e)
+					{
+						throw new IndeterminateEvaluationException(getIndeterminateArgMessage(0), e);
+					}
+
+					final IndexableJsonPath jsonPath;
+					if (constantJsonPath.isPresent())
+					{
+						jsonPath = constantJsonPath.get();
+					}
+					else
+					{
+						final StringValue jsonPathAttVal;
+						try
+						{
+							jsonPathAttVal = Expressions.eval(argExp1, context, mdpContext, StandardDatatypes.STRING);
+						}
+						catch (final IndeterminateEvaluationException e)
+						{
+							throw new IndeterminateEvaluationException(getIndeterminateArgMessage(1), e);
+						}
+
+						try
+						{
+							jsonPath = IndexableJsonPath.compile(jsonPathAttVal.getUnderlyingValue());
+						}
+						catch (final InvalidPathException e)
+						{
+							throw new IndeterminateEvaluationException("Invalid JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e);
+						}
+					}
+
+					final List<RETURN_BAG_ELEMENT_TYPE> results;
+					if (parallelEvalMinBagSize > 0 && jsonBag.size() >= parallelEvalMinBagSize)
+					{
+						// common ForkJoinPool (see class Javadoc); ordered stream, i.e. same order as sequential evaluation
+						results = jsonBag.elements().parallelStream().flatMap(json -> eval(jsonPath, json, new ArrayList<>()).stream()).collect(Collectors.toList());
+					}
+					else
+					{
+						results = new ArrayList<>();
+						for (final JsonValue json : jsonBag)
+						{
+							eval(jsonPath, json, results);
+						}
+					}
+
+					return Bags.newBag(returnBagElementType, results);
+				}
+			};
+			return foldIfConstant(call, argExpressions, remainingArgTypes);
+		}
+	}
+
+	/**
+	 * Implements the boolean-from-json-path-over-bag function that evaluates a JSON path against each JSON object/array in a bag and returns the list of boolean values of all results.
+	 */
+	public static final class BooleansFromJsonPathOverBagFunction extends JsonPathOverBagFunction<BooleanValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public BooleansFromJsonPathOverBagFunction()
+		{
+			super(StandardDatatypes.BOOLEAN, "boolean", BOOLEAN_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the double-from-json-path-over-bag function that evaluates a JSON path against each JSON object/array in a bag and returns the list of double values of all results.
+	 */
+	public static final class DoublesFromJsonPathOverBagFunction extends JsonPathOverBagFunction<DoubleValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public DoublesFromJsonPathOverBagFunction()
+		{
+			super(StandardDatatypes.DOUBLE, "double", DOUBLE_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the integer-from-json-path-over-bag function that evaluates a JSON path against each JSON object/array in a bag and returns the list of integer values of all results.
+	 */
+	public static final class IntegersFromJsonPathOverBagFunction extends JsonPathOverBagFunction<IntegerValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegersFromJsonPathOverBagFunction()
+		{
+			super(StandardDatatypes.INTEGER, "integer", INTEGER_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the string-from-json-path-over-bag function that evaluates a JSON path against each JSON object/array in a bag and returns the list of string values of all results.
+	 */
+	public static final class StringsFromJsonPathOverBagFunction extends JsonPathOverBagFunction<StringValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public StringsFromJsonPathOverBagFunction()
+		{
+			super(StandardDatatypes.STRING, "string", STRING_CONVERTER);
+		}
+	}
+
+	/**
+	 * Non-standard XACML function that evaluates a JSON path template against a JSON object/array: {@code json-path-template(JSON, JsonPathTemplate, value1, value2...)} -> bag, where the template
+	 * (constant string) is a JSON path with named placeholders {@code {name}} or {@code {name:type}} - type being one of {@code string} (default), {@code integer}, {@code double}, {@code boolean} -
+	 * bound to the next (string) arguments, in order of first occurrence of the placeholder names in the template, e.g. {@code $.resources[?(@.id == {resourceId})].actions[*]}. The values are inserted
+	 * as JSONPath literals of the placeholder type (strings are quoted and escaped), so they cannot alter the structure of the JSON path.
+	 * <p>
+	 * This is the alternative to JSON paths built dynamically by string concatenation: the template is parsed and validated at policy initialization time, and the JSON path compiled for given
+	 * values is cached.
+	 */
+	private static abstract class JsonPathTemplateFunction<RETURN_BAG_ELEMENT_TYPE extends StringParseableValue<?>> extends MultiParameterTypedFirstOrderFunction<Bag<RETURN_BAG_ELEMENT_TYPE>>
+	{
+		private final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType;
+		private final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter;
+
+		/**
+		 * Default constructor for the json path template function that may return a bag of strings, integers, booleans, etc. and takes parameters: JSON object/array, JSON path template (string),
+		 * template parameter values (strings)
+		 */
+		public JsonPathTemplateFunction(final AttributeDatatype<RETURN_BAG_ELEMENT_TYPE> returnBagElementType, final String returnBagElementTypeShortName, final java.util.function.Function<Object, RETURN_BAG_ELEMENT_TYPE> converter)
+		{
+			super(Function.AUTHZFORCE_EXTENSION_PREFIX + returnBagElementTypeShortName + "-from-json-path-template", returnBagElementType.getBagDatatype(), true, Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING, StandardDatatypes.STRING));
+			this.returnBagElementType = returnBagElementType;
+			this.converter = converter;
+		}
+
+		@Override
+		public FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> newCall(final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes) throws IllegalArgumentException
+		{
+			assert argExpressions != null && argExpressions.size() >= 2;
+			final Optional<StringValue> constantTemplate = argExpressions.get(1).getValue().map(StandardDatatypes.STRING::cast);
+			if (constantTemplate.isEmpty())
+			{
+				throw new IllegalArgumentException(this + ": invalid arg #1 (JSON path template): not constant");
+			}
+
+			final JsonPathTemplate jsonPathTemplate = new JsonPathTemplate(constantTemplate.get().getUnderlyingValue());
+			final int actualParamValueCount = argExpressions.size() - 2 + remainingArgTypes.length;
+			if (actualParamValueCount != jsonPathTemplate.getParameterCount())
+			{
+				throw new IllegalArgumentException(this + ": invalid number of JSON path template parameter values: expected: " + jsonPathTemplate.getParameterCount() + " (number of placeholders in template '" + jsonPathTemplate + "'); actual: " + actualParamValueCount);
+			}
+
+			final FirstOrderFunctionCall<Bag<RETURN_BAG_ELEMENT_TYPE>> call = new BaseFirstOrderFunctionCall.EagerMultiPrimitiveTypeEval<>(functionSignature, argExpressions, remainingArgTypes)
+			{
+
+				@Override
+				protected Bag<RETURN_BAG_ELEMENT_TYPE> evaluate(final Deque<AttributeValue> args) throws IndeterminateEvaluationException
+				{
+					// first arg is the JSON object/array
+					final AttributeValue arg0 = args.poll();
+					Preconditions.checkArgument(arg0 != null, "Missing arg #0 (JSON array/object) to json-path-template function");
+					final JsonValue jsonAttVal = (JsonValue) arg0;
+					// second arg is the (constant) template, already parsed
+					args.poll();
+					final List<String> paramValues = new ArrayList<>(args.size());
+					for (final AttributeValue paramValue : args)
+					{
+						paramValues.add(StandardDatatypes.STRING.cast(paramValue).getUnderlyingValue());
+					}
+
+					final IndexableJsonPath jsonPath;
+					try
+					{
+						jsonPath = jsonPathTemplate.compile(paramValues);
+					}
+					catch (final IllegalArgumentException e)
+					{
+						throw new IndeterminateEvaluationException("Invalid JSON path template parameter value(s)", XacmlStatusCode.PROCESSING_ERROR.value(), e);
+					}
+
+					try
+					{
+						final Object result = jsonPath.read(jsonAttVal);
+						return newBagFromJsonPathEvalResult(result, jsonPath.getPath(), returnBagElementType, converter);
+					}
+					catch (final PathNotFoundException e)
+					{
+						return Bags.empty(returnBagElementType, new IndeterminateEvaluationException("Error evaluating JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e));
+					}
+				}
+
+			};
+			return foldIfConstant(call, argExpressions, remainingArgTypes);
+		}
+	}
+
+	/**
+	 * Implements the boolean-from-json-path-template function that evaluates a JSON path template - bound to the parameter values - against a JSON object/array and returns a list of boolean values
+	 * as a result.
+	 */
+	public static final class BooleansFromJsonPathTemplateFunction extends JsonPathTemplateFunction<BooleanValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public BooleansFromJsonPathTemplateFunction()
+		{
+			super(StandardDatatypes.BOOLEAN, "boolean", BOOLEAN_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the double-from-json-path-template function that evaluates a JSON path template - bound to the parameter values - against a JSON object/array and returns a list of double values
+	 * as a result.
+	 */
+	public static final class DoublesFromJsonPathTemplateFunction extends JsonPathTemplateFunction<DoubleValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public DoublesFromJsonPathTemplateFunction()
+		{
+			super(StandardDatatypes.DOUBLE, "double", DOUBLE_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the integer-from-json-path-template function that evaluates a JSON path template - bound to the parameter values - against a JSON object/array and returns a list of integer values
+	 * as a result.
+	 */
+	public static final class IntegersFromJsonPathTemplateFunction extends JsonPathTemplateFunction<IntegerValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegersFromJsonPathTemplateFunction()
+		{
+			super(StandardDatatypes.INTEGER, "integer", INTEGER_CONVERTER);
+		}
+	}
+
+	/**
+	 * Implements the string-from-json-path-template function that evaluates a JSON path template - bound to the parameter values - against a JSON object/array and returns a list of string values
+	 * as a result.
+	 */
+	public static final class StringsFromJsonPathTemplateFunction extends JsonPathTemplateFunction<StringValue>
+	{
+		/**
+		 * Constructor
+		 */
+		public StringsFromJsonPathTemplateFunction()
+		{
+			super(StandardDatatypes.STRING, "string", STRING_CONVERTER);
+		}
+	}
+
+	/**
+	 * Aggregation of the numeric values returned by a JSON path evaluation, by the {@code *-<aggregation>-from-json-path} functions
+	 */
+	private enum Aggregation
+	{
+		SUM("sum"), MIN("min"), MAX("max"), AVERAGE("average");
+
+		private final String shortName;
+
+		Aggregation(final String shortName)
+		{
+			this.shortName = shortName;
+		}
+	}
+
+	/**
+	 * Non-standard XACML function that evaluates a JSON path against a JSON object/array and aggregates the numeric results into a single value: {@code <aggregation>-json-path(JSON, JsonPath)} ->
+	 * number. This is equivalent to - but more efficient than - aggregating the bag returned by the matching {@code *-from-json-path} function: the results are folded into a primitive accumulator
+	 * as soon as they are found by the JSONPath processor (see {@link IndexableJsonPath#forEach(JsonValue, java.util.function.Predicate)}), without creating any intermediate list, XACML value or bag. Like the {@code *-from-json-path} functions, results of invalid type in a list are ignored (a warning is
+	 * logged), whereas a single result of invalid type or a JSON path not found cause an Indeterminate result.
+	 * <p>
+	 * The sum of no value is zero, whereas the min, max or average of no value is Indeterminate.
+	 */
+	private static abstract class JsonPathAggregateFunction<RETURN_TYPE extends AttributeValue> extends MultiParameterTypedFirstOrderFunction<RETURN_TYPE>
+	{
+		protected final Aggregation aggregation;
+		private final AttributeDatatype<RETURN_TYPE> returnType;
+
+		/**
+		 * Default constructor for the json path function that aggregates the numeric results and takes parameters: JSON object/array, JSON path (string)
+		 */
+		protected JsonPathAggregateFunction(final AttributeDatatype<RETURN_TYPE> returnType, final String returnTypeShortName, final Aggregation aggregation)
+		{
+			super(Function.AUTHZFORCE_EXTENSION_PREFIX + returnTypeShortName + "-" + aggregation.shortName + "-from-json-path", returnType, false, Arrays.asList(JsonValue.DATATYPE, StandardDatatypes.STRING));
+			this.aggregation = aggregation;
+			this.returnType = returnType;
+		}
+
+		/**
+		 * Creates a new accumulator for one evaluation
+		 *
+		 * @return new accumulator
+		 */
+		protected abstract Accumulator<RETURN_TYPE> newAccumulator();
+
+		private IndeterminateEvaluationException newInvalidResultException(final Object result, final String jsonPathForLogging)
+		{
+			return new IndeterminateEvaluationException("Evaluation of JSONPath '" + jsonPathForLogging + "' returned an invalid value type: expected: " + returnType.getInstanceClass() + "; actual: " + toStringForLogging(result), XacmlStatusCode.PROCESSING_ERROR.value());
+		}
+
+		private void logInvalidListResult(final Object result, final String jsonPathForLogging)
+		{
+			if (LOGGER.isWarnEnabled())
+			{
+				LOGGER.warn("Evaluation of JSONPath '{}' returned a list with an invalid value type: expected: {}; actual: {}", jsonPathForLogging.replaceAll("[\r\n]", ""), returnType.getInstanceClass().toString().replaceAll("[\r\n]", ""), toStringForLogging(result));
+			}
+		}
+
+		/**
+		 * Aggregates the values returned by the JSON path evaluation
+		 *
+		 * @param jsonPath
+		 *            JSON path
+		 * @param json
+		 *            JSON object/array
+		 * @return aggregated value
+		 * @throws IndeterminateEvaluationException
+		 *             if there is nothing to aggregate and no neutral value (min, max, average), or the single result is not valid
+		 * @throws PathNotFoundException
+		 *             if the JSON path is definite and not found
+		 */
+		private RETURN_TYPE aggregate(final IndexableJsonPath jsonPath, final JsonValue json) throws IndeterminateEvaluationException, PathNotFoundException
+		{
+			final String jsonPathForLogging = jsonPath.getPath();
+			final Accumulator<RETURN_TYPE> acc = newAccumulator();
+			if (jsonPath.isDefinite())
+			{
+				final Object result = jsonPath.read(json);
+				if (result instanceof List<?> results)
+				{
+					for (final Object r : results)
+					{
+						if (!acc.add(r))
+						{
+							logInvalidListResult(r, jsonPathForLogging);
+						}
+					}
+				}
+				else if (!acc.add(result))
+				{
+					throw newInvalidResultException(result, jsonPathForLogging);
+				}
+			}
+			else
+			{
+				jsonPath.forEach(json, result -> {
+					if (!acc.add(result))
+					{
+						logInvalidListResult(result, jsonPathForLogging);
+					}
+
+					return true;
+				});
+			}
+
+			if (acc.count == 0 && aggregation != Aggregation.SUM)
+			{
+				throw new IndeterminateEvaluationException("Evaluation of JSONPath '" + jsonPathForLogging + "' returned no valid value to aggregate (" + aggregation.shortName + ")", XacmlStatusCode.PROCESSING_ERROR.value());
+			}
+
+			return acc.getResult();
+		}
+
+		@Override
+		public FirstOrderFunctionCall<RETURN_TYPE> newCall(final List<Expression<?>> argExpressions, final Datatype<?>... remainingArgTypes) throws IllegalArgumentException
+		{
+			assert argExpressions != null && argExpressions.size() == 2;
+			/*
+			 * Check whether first arg - JSONPath - is constant/literal, in which case we can pre-compile it for optimisation purposes.
+			 */
+			final Optional<IndexableJsonPath> constantJsonPath = compileIfConstant(argExpressions.get(1));
+			final FirstOrderFunctionCall<RETURN_TYPE> call = new BaseFirstOrderFunctionCall.EagerMultiPrimitiveTypeEval<>(functionSignature, argExpressions, remainingArgTypes)
+			{
+
+				@Override
+				protected RETURN_TYPE evaluate(final Deque<AttributeValue> args) throws IndeterminateEvaluationException
+				{
+					// first arg is the JSON object/array
+					final AttributeValue arg0 = args.poll();
+					Preconditions.checkArgument(arg0 != null, "Missing arg #0 (JSON array/object) to json-path aggregate function");
+					final JsonValue jsonAttVal = (JsonValue) arg0;
+					// second arg is the JSON path
+					final AttributeValue arg1 = args.poll();
+					Preconditions.checkArgument(arg1 != null, "Missing arg #1 (JSON path) to json-path aggregate function");
+					try
+					{
+						return aggregate(constantJsonPath.isPresent() ? constantJsonPath.get() : IndexableJsonPath.compile(StandardDatatypes.STRING.cast(arg1).getUnderlyingValue()), jsonAttVal);
+					}
+					catch (final InvalidPathException e)
+					{
+						// including PathNotFoundException
+						throw new IndeterminateEvaluationException("Error evaluating JSONPath", XacmlStatusCode.PROCESSING_ERROR.value(), e);
+					}
+				}
+
+			};
+			return foldIfConstant(call, argExpressions, remainingArgTypes);
+		}
+	}
+
+	/**
+	 * Accumulator of the numeric values returned by a JSON path evaluation, for one evaluation of a {@link JsonPathAggregateFunction}
+	 */
+	private static abstract class Accumulator<V extends AttributeValue>
+	{
+		protected final Aggregation aggregation;
+		// number of values accumulated so far
+		protected int count = 0;
+
+		protected Accumulator(final Aggregation aggregation)
+		{
+			this.aggregation = aggregation;
+		}
+
+		/**
+		 * Accumulates a JSON path evaluation result
+		 *
+		 * @param jsonPathEvalResult
+		 *            JSON path evaluation result
+		 * @return false iff the result is not of the expected type (not accumulated)
+		 */
+		protected abstract boolean add(Object jsonPathEvalResult);
+
+		/**
+		 * Get the aggregated value
+		 *
+		 * @return aggregated value (undefined if no value accumulated, unless the aggregation is the sum)
+		 */
+		protected abstract V getResult();
+	}
+
+	private static final class DoubleAccumulator extends Accumulator<DoubleValue>
+	{
+		private double acc;
+
+		private DoubleAccumulator(final Aggregation aggregation)
+		{
+			super(aggregation);
+			this.acc = aggregation == Aggregation.MIN ? Double.POSITIVE_INFINITY : aggregation == Aggregation.MAX ? Double.NEGATIVE_INFINITY : 0;
+		}
+
+		@Override
+		protected boolean add(final Object jsonPathEvalResult)
+		{
+			if (!(jsonPathEvalResult instanceof Double d))
+			{
+				return false;
+			}
+
+			final double val = d;
+			acc = switch (aggregation)
+			{
+				case SUM, AVERAGE -> acc + val;
+				case MIN -> Math.min(acc, val);
+				case MAX -> Math.max(acc, val);
+			};
+			count++;
+			return true;
+		}
+
+		@Override
+		protected DoubleValue getResult()
+		{
+			return new DoubleValue(aggregation == Aggregation.AVERAGE ? acc / count : acc);
+		}
+	}
+
+	/**
+	 * Aggregate function returning a double, computed from the double values returned by the JSON path evaluation (other values ignored)
+	 */
+	private static abstract class DoubleAggregateFromJsonPathFunction extends JsonPathAggregateFunction<DoubleValue>
+	{
+		protected DoubleAggregateFromJsonPathFunction(final Aggregation aggregation)
+		{
+			super(StandardDatatypes.DOUBLE, "double", aggregation);
+		}
+
+		@Override
+		protected final Accumulator<DoubleValue> newAccumulator()
+		{
+			return new DoubleAccumulator(aggregation);
+		}
+	}
+
+	/**
+	 * Integer accumulator using a primitive {@code long} as long as possible, and a {@link BigInteger} only when the result overflows the long range
+	 */
+	private static final class IntegerAccumulator extends Accumulator<IntegerValue>
+	{
+		private long acc = 0;
+		// not null iff the current result is out of the long range
+		private BigInteger bigAcc = null;
+
+		private IntegerAccumulator(final Aggregation aggregation)
+		{
+			super(aggregation);
+			assert aggregation != Aggregation.AVERAGE;
+		}
+
+		private void setBig(final BigInteger val)
+		{
+			if (val.bitLength() < Long.SIZE)
+			{
+				this.acc = val.longValue();
+				this.bigAcc = null;
+			}
+			else
+			{
+				this.bigAcc = val;
+			}
+		}
+
+		private void add(final long val)
+		{
+			if (bigAcc != null)
+			{
+				add(BigInteger.valueOf(val));
+				return;
+			}
+
+			if (count++ == 0)
+			{
+				acc = val;
+				return;
+			}
+
+			switch (aggregation)
+			{
+				case SUM -> {
+					final long sum = acc + val;
+					// overflow iff both operands have a different sign from the result (Math.addExact without exception)
+					if (((acc ^ sum) & (val ^ sum)) < 0)
+					{
+						bigAcc = BigInteger.valueOf(acc).add(BigInteger.valueOf(val));
+					}
+					else
+					{
+						acc = sum;
+					}
+				}
+				case MIN -> acc = Math.min(acc, val);
+				case MAX -> acc = Math.max(acc, val);
+				case AVERAGE -> throw new AssertionError("AVERAGE not supported by IntegerAccumulator");
+			}
+		}
+
+		private void add(final BigInteger val)
+		{
+			if (val.bitLength() < Long.SIZE && bigAcc == null)
+			{
+				add(val.longValue());
+				return;
+			}
+
+			if (count++ == 0)
+			{
+				setBig(val);
+				return;
+			}
+
+			final BigInteger current = bigAcc == null ? BigInteger.valueOf(acc) : bigAcc;
+			setBig(switch (aggregation)
+			{
+				case SUM -> current.add(val);
+				case MIN -> current.min(val);
+				case MAX -> current.max(val);
+				case AVERAGE -> throw new AssertionError("AVERAGE not supported by IntegerAccumulator");
+			});
+		}
+
+		@Override
+		protected boolean add(final Object jsonPathEvalResult)
+		{
+			if (jsonPathEvalResult instanceof Integer || jsonPathEvalResult instanceof Long || jsonPathEvalResult instanceof Short)
+			{
+				add(((Number) jsonPathEvalResult).longValue());
+				return true;
+			}
+
+			if (jsonPathEvalResult instanceof BigInteger b)
+			{
+				add(b);
+				return true;
+			}
+
+			return false;
+		}
+
+		@Override
+		protected IntegerValue getResult()
+		{
+			return bigAcc == null ? IntegerValue.valueOf(acc) : new IntegerValue(new ArbitrarilyBigInteger(bigAcc));
+		}
+	}
+
+	/**
+	 * Aggregate function returning an integer, computed from the integer values returned by the JSON path evaluation (other values ignored)
+	 */
+	private static abstract class IntegerAggregateFromJsonPathFunction extends JsonPathAggregateFunction<IntegerValue>
+	{
+		protected IntegerAggregateFromJsonPathFunction(final Aggregation aggregation)
+		{
+			super(StandardDatatypes.INTEGER, "integer", aggregation);
+		}
+
+		@Override
+		protected final Accumulator<IntegerValue> newAccumulator()
+		{
+			return new IntegerAccumulator(aggregation);
+		}
+	}
+
+	/**
+	 * Implements the double-sum-from-json-path function that evaluates a JSON path against a JSON object/array and returns the sum of the double values in the result (zero if none).
+	 */
+	public static final class DoubleSumFromJsonPathFunction extends DoubleAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public DoubleSumFromJsonPathFunction()
+		{
+			super(Aggregation.SUM);
+		}
+	}
+
+	/**
+	 * Implements the double-min-from-json-path function that evaluates a JSON path against a JSON object/array and returns the minimum of the double values in the result (Indeterminate if none).
+	 */
+	public static final class DoubleMinFromJsonPathFunction extends DoubleAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public DoubleMinFromJsonPathFunction()
+		{
+			super(Aggregation.MIN);
+		}
+	}
+
+	/**
+	 * Implements the double-max-from-json-path function that evaluates a JSON path against a JSON object/array and returns the maximum of the double values in the result (Indeterminate if none).
+	 */
+	public static final class DoubleMaxFromJsonPathFunction extends DoubleAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public DoubleMaxFromJsonPathFunction()
+		{
+			super(Aggregation.MAX);
+		}
+	}
+
+	/**
+	 * Implements the double-average-from-json-path function that evaluates a JSON path against a JSON object/array and returns the average of the double values in the result (Indeterminate if
+	 * none).
+	 */
+	public static final class DoubleAverageFromJsonPathFunction extends DoubleAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public DoubleAverageFromJsonPathFunction()
+		{
+			super(Aggregation.AVERAGE);
+		}
+	}
+
+	/**
+	 * Implements the integer-sum-from-json-path function that evaluates a JSON path against a JSON object/array and returns the sum of the integer values in the result (zero if none), without
+	 * overflow (arbitrary-precision integer).
+	 */
+	public static final class IntegerSumFromJsonPathFunction extends IntegerAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegerSumFromJsonPathFunction()
+		{
+			super(Aggregation.SUM);
+		}
+	}
+
+	/**
+	 * Implements the integer-min-from-json-path function that evaluates a JSON path against a JSON object/array and returns the minimum of the integer values in the result (Indeterminate if none).
+	 */
+	public static final class IntegerMinFromJsonPathFunction extends IntegerAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegerMinFromJsonPathFunction()
+		{
+			super(Aggregation.MIN);
+		}
+	}
+
+	/**
+	 * Implements the integer-max-from-json-path function that evaluates a JSON path against a JSON object/array and returns the maximum of the integer values in the result (Indeterminate if none).
+	 */
+	public static final class IntegerMaxFromJsonPathFunction extends IntegerAggregateFromJsonPathFunction
+	{
+		/**
+		 * Constructor
+		 */
+		public IntegerMaxFromJsonPathFunction()
 		{
-			return JsonPathFunctions.newBagFromJsonPathEvalResult(jsonPathEvalResult, jsonPathForLogging, StandardDatatypes.STRING, CONVERTER);
+			super(Aggregation.MAX);
 		}
 	}
 
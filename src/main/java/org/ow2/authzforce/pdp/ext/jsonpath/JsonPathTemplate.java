@@ -0,0 +1,218 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath;
+
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import com.jayway.jsonpath.InvalidPathException;
+import com.jayway.jsonpath.JsonPath;
+
+/**
+ * JSONPath template, i.e. JSONPath with named placeholders - {@code {name}} or {@code {name:type}} where type is one of: {@code string} (default), {@code integer}, {@code double}, {@code boolean}
+ * - to be bound to actual values at evaluation time, e.g. {@code $.resources[?(@.id == {resourceId})].actions[*]}. Each distinct placeholder name is bound to one value, the values being given in the
+ * order of first occurrence of the placeholder names in the template.
+ * <p>
+ * The template is parsed and validated once for all (with dummy values) when created. Values are always inserted as JSONPath literals of the placeholder type: strings are quoted and escaped, other
+ * values are validated against the type, which prevents any JSONPath injection. The JSONPath compiled for each binding is cached (bounded cache) so that the same JSONPath is not compiled again for
+ * the same values.
+ */
+final class JsonPathTemplate
+{
+	private static final Pattern PLACEHOLDER_PATTERN = Pattern.compile("\\{([A-Za-z_][A-Za-z0-9_.-]*)(?::(string|integer|double|boolean))?}");
+
+	private static final int COMPILED_PATH_CACHE_MAX_SIZE = 256;
+
+	private enum ParameterType
+	{
+		STRING("x"), INTEGER("0"), DOUBLE("0.0"), BOOLEAN("true");
+
+		private final String dummyValue;
+
+		ParameterType(final String dummyValue)
+		{
+			this.dummyValue = dummyValue;
+		}
+
+		private String toJsonPathLiteral(final String value) throws IllegalArgumentException
+		{
+			switch (this)
+			{
+				case INTEGER:
+					return new BigInteger(value).toString();
+				case DOUBLE:
+					final double d = Double.parseDouble(value);
+					if (Double.isNaN(d) || Double.isInfinite(d))
+					{
+						throw new IllegalArgumentException("Invalid double value for JSONPath template parameter (NaN/infinite): " + value);
+					}
+					return Double.toString(d);
+				case BOOLEAN:
+					if (value.equals("true") || value.equals("1"))
+					{
+						return "true";
+					}
+					if (value.equals("false") || value.equals("0"))
+					{
+						return "false";
+					}
+					throw new IllegalArgumentException("Invalid boolean value for JSONPath template parameter: " + value);
+				default:
+					// STRING
+					return "'" + value.replace("\\", "\\\\").replace("'", "\\'") + "'";
+			}
+		}
+	}
+
+	private final String template;
+
+	/*
+	 * Parts of the template between placeholders: literalParts.size() == parameterIndexes.size() + 1
+	 */
+	private final List<String> literalParts;
+
+	/*
+	 * Index - in the parameter list - of each placeholder, in order of occurrence in the template
+	 */
+	private final List<Integer> parameterIndexes;
+
+	/*
+	 * Type of each (distinct) parameter
+	 */
+	private final List<ParameterType> parameterTypes;
+
+	private final Cache<List<String>, IndexableJsonPath> compiledPathCache = CacheBuilder.newBuilder().maximumSize(COMPILED_PATH_CACHE_MAX_SIZE).build();
+
+	/**
+	 * Parses and validates a JSONPath template
+	 *
+	 * @param template
+	 *            JSONPath template
+	 * @throws IllegalArgumentException
+	 *             if the template is not valid
+	 */
+	JsonPathTemplate(final String template) throws IllegalArgumentException
+	{
+		this.template = template;
+		final List<String> parts = new ArrayList<>();
+		final List<Integer> paramIndexes = new ArrayList<>();
+		final List<ParameterType> paramTypes = new ArrayList<>();
+		final Map<String, Integer> paramIndexesByName = new HashMap<>();
+		final Matcher matcher = PLACEHOLDER_PATTERN.matcher(template);
+		int partStart = 0;
+		while (matcher.find())
+		{
+			parts.add(template.substring(partStart, matcher.start()));
+			partStart = matcher.end();
+			final String paramName = matcher.group(1);
+			final ParameterType paramType = matcher.group(2) == null ? ParameterType.STRING : ParameterType.valueOf(matcher.group(2).toUpperCase(Locale.ROOT));
+			final Integer existingParamIndex = paramIndexesByName.get(paramName);
+			if (existingParamIndex == null)
+			{
+				paramIndexesByName.put(paramName, paramTypes.size());
+				paramIndexes.add(paramTypes.size());
+				paramTypes.add(paramType);
+			}
+			else
+			{
+				if (paramTypes.get(existingParamIndex) != paramType)
+				{
+					throw new IllegalArgumentException("Invalid JSONPath template '" + template + "': placeholder '" + paramName + "' used with different types");
+				}
+
+				paramIndexes.add(existingParamIndex);
+			}
+		}
+
+		parts.add(template.substring(partStart));
+		this.literalParts = List.copyOf(parts);
+		this.parameterIndexes = List.copyOf(paramIndexes);
+		this.parameterTypes = List.copyOf(paramTypes);
+
+		// validate the JSONPath syntax with dummy values
+		final String dummyPath = bind(this.parameterTypes.stream().map(paramType -> paramType.dummyValue).toList());
+		try
+		{
+			JsonPath.compile(dummyPath);
+		}
+		catch (final InvalidPathException e)
+		{
+			throw new IllegalArgumentException("Invalid JSONPath template: '" + template + "'", e);
+		}
+	}
+
+	/**
+	 * Get the number of (distinct) parameters
+	 *
+	 * @return number of parameters
+	 */
+	int getParameterCount()
+	{
+		return parameterTypes.size();
+	}
+
+	private String bind(final List<String> parameterValues) throws IllegalArgumentException
+	{
+		final StringBuilder path = new StringBuilder(literalParts.get(0));
+		for (int i = 0; i < parameterIndexes.size(); i++)
+		{
+			final int paramIndex = parameterIndexes.get(i);
+			path.append(parameterTypes.get(paramIndex).toJsonPathLiteral(parameterValues.get(paramIndex))).append(literalParts.get(i + 1));
+		}
+
+		return path.toString();
+	}
+
+	/**
+	 * Get the JSONPath resulting from the binding of the template parameters to actual values
+	 *
+	 * @param parameterValues
+	 *            parameter values, in order of first occurrence of the placeholders in the template (lexical representation of XACML values)
+	 * @return compiled JSONPath
+	 * @throws IllegalArgumentException
+	 *             if one of the values is not valid for the parameter type
+	 */
+	IndexableJsonPath compile(final List<String> parameterValues) throws IllegalArgumentException
+	{
+		assert parameterValues.size() == parameterTypes.size();
+		try
+		{
+			return compiledPathCache.get(parameterValues, () -> IndexableJsonPath.compile(bind(parameterValues)));
+		}
+		catch (final ExecutionException | UncheckedExecutionException e)
+		{
+			throw new IllegalArgumentException("Invalid values of JSONPath template '" + template + "' parameters: " + parameterValues, e.getCause());
+		}
+	}
+
+	@Override
+	public String toString()
+	{
+		return template;
+	}
+}
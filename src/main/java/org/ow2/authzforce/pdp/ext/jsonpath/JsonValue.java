@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2024 THALES.
+ * Copyright 2012-2026 THALES.
  *
  * This file is part of AuthzForce CE.
  *
@@ -17,7 +17,17 @@
  */
 package org.ow2.authzforce.pdp.ext.jsonpath;
 
-import java.util.Objects;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 
 import com.google.common.base.Preconditions;
 import com.jayway.jsonpath.Configuration;
@@ -28,7 +38,11 @@ import com.jayway.jsonpath.spi.json.JsonProvider;
 import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import net.sf.saxon.s9api.ItemType;
 import net.sf.saxon.s9api.XdmAtomicValue;
+import net.sf.saxon.s9api.XdmArray;
+import net.sf.saxon.s9api.XdmEmptySequence;
 import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmMap;
+import net.sf.saxon.s9api.XdmValue;
 import org.ow2.authzforce.core.pdp.api.func.Function;
 import org.ow2.authzforce.core.pdp.api.value.AttributeDatatype;
 import org.ow2.authzforce.core.pdp.api.value.Datatype;
@@ -40,55 +54,252 @@ import org.ow2.authzforce.core.pdp.api.value.StringParseableValue;
  * <p>
  *         N.B.: this datatype supports only JSON objects and arrays, since simpler values (number, string, boolean, null) can be represented by XACML standard datatypes already.
  *
+ * <p>
+ *         The XPath (XDM) representation of such value - used by AttributeSelectors and XPath-based functions - is a XDM map (JSON object) or array (JSON array), built from the parsed JSON the same
+ *         way as the XPath 3.1 function {@code fn:parse-json} does, so that XPath expressions can navigate the JSON value directly, without parsing it again.
+ *
  * @version $Id: $
  */
-public final class JsonValue extends StringParseableValue<String>
+public final class JsonValue extends StringParseableValue<CharSequence>
 {
 	/**
 	 * Create a XACML Datatype for JSON values
 	 */
 	public static final AttributeDatatype<JsonValue> DATATYPE = new AttributeDatatype<>(JsonValue.class, Datatype.AUTHZFORCE_EXTENSION_PREFIX + "json",
-				Function.AUTHZFORCE_EXTENSION_PREFIX + "json-", ItemType.STRING);
+				Function.AUTHZFORCE_EXTENSION_PREFIX + "json", ItemType.ANY_FUNCTION);
 
 	/**
 	 * JsonPath processing configuration
 	 */
 	public static final Configuration JSON_PROCESSOR_CONFIGURATION = Configuration.defaultConfiguration();
 
+	/**
+	 * Name of the system property that enables the "drop-raw-text" mode when set to {@code true}: {@link JsonValue}s created with {@link #JsonValue(String)} (as done by the {@link Factory}) do not
+	 * keep the original JSON text once parsed, only the parsed JSON; the JSON text is serialized again from the parsed JSON - compact form - only if requested with {@link #printXML()} or through
+	 * {@link #getUnderlyingValue()}, in which case it is memoized. This mode reduces the memory footprint of JSON values - roughly by half - at the expense of the serialization if needed (e.g. for the XACML response).
+	 */
+	public static final String DROP_RAW_TEXT_SYSTEM_PROPERTY_NAME = "org.ow2.authzforce.pdp.ext.jsonpath.dropJsonRawText";
+
+	private static final boolean IS_RAW_TEXT_RETAINED_BY_DEFAULT = !Boolean.getBoolean(DROP_RAW_TEXT_SYSTEM_PROPERTY_NAME);
+
+	/**
+	 * JSON text serialized from the parsed JSON (compact form) on first access, then memoized: underlying value of a {@link JsonValue} when the raw JSON text is not retained
+	 */
+	private static final class SerializedJsonText implements CharSequence
+	{
+		private final Object json;
+		private transient volatile String text = null;
+
+		private SerializedJsonText(final Object json)
+		{
+			this.json = json;
+		}
+
+		/*
+		 * Serialized JSON text if already serialized, else null
+		 */
+		private String getIfSerialized()
+		{
+			return text;
+		}
+
+		@Override
+		public String toString()
+		{
+			if (text == null)
+			{
+				text = JSON_PROCESSOR_CONFIGURATION.jsonProvider().toJson(json);
+			}
+
+			return text;
+		}
+
+		@Override
+		public int length()
+		{
+			return toString().length();
+		}
+
+		@Override
+		public char charAt(final int index)
+		{
+			return toString().charAt(index);
+		}
+
+		@Override
+		public CharSequence subSequence(final int start, final int end)
+		{
+			return toString().subSequence(start, end);
+		}
+	}
+
 	// jsonPathReadCtx.json() should return Map<String, ?> for JSON object, List<?> for JSON array
 	private final ReadContext jsonPathReadCtx;
 
+	private final boolean isRawTextRetained;
+
 	private transient volatile XdmItem xdmItem = null;
 
+	private transient volatile long estimatedRetainedSize = -1;
+
+	/*
+	 * Maximum number of indexes kept per JSON value (see getIndex())
+	 */
+	private static final int MAX_INDEX_COUNT = 16;
+
+	/*
+	 * Indexes on the parsed JSON (e.g. equality indexes on JSON arrays) by index key, and number of index slots reserved (built or being built, at most MAX_INDEX_COUNT)
+	 */
+	private static final class Indexes
+	{
+		private final ConcurrentMap<Object, CompletableFuture<Object>> byKey = new ConcurrentHashMap<>(4);
+		private final AtomicInteger reservedCount = new AtomicInteger(0);
+	}
+
+	private static final AtomicReferenceFieldUpdater<JsonValue, Indexes> INDEXES_UPDATER = AtomicReferenceFieldUpdater.newUpdater(JsonValue.class, Indexes.class, "indexes");
+
+	/*
+	 * Created on demand (set with INDEXES_UPDATER)
+	 */
+	private transient volatile Indexes indexes = null;
+
+	private static ReadContext parse(final String val) throws IllegalArgumentException
+	{
+		Preconditions.checkArgument(val != null, "Undefined raw value");
+		final ReadContext jsonPathReadCtx;
+		try
+		{
+			jsonPathReadCtx = JsonPath.using(JSON_PROCESSOR_CONFIGURATION).parse(val);
+		} catch (InvalidJsonException e) {
+			throw new IllegalArgumentException("Invalid JSON", e);
+		}
+
+		checkObjectOrArray(jsonPathReadCtx.json());
+		return jsonPathReadCtx;
+	}
+
+	private static void checkObjectOrArray(final Object json) throws IllegalArgumentException
+	{
+		final JsonProvider jsonProvider = JSON_PROCESSOR_CONFIGURATION.jsonProvider();
+		Preconditions.checkArgument(json != null && (jsonProvider.isArray(json) || jsonProvider.isMap(json)), "Invalid input for JsonValue datatype: expected: JSON object (Map) or array (List); actual: " + (json == null ? null : json.getClass()));
+	}
+
+	private JsonValue(final String rawText, final ReadContext jsonPathReadCtx, final boolean isRawTextRetained)
+	{
+		super(isRawTextRetained ? rawText : new SerializedJsonText(jsonPathReadCtx.json()));
+		this.jsonPathReadCtx = jsonPathReadCtx;
+		this.isRawTextRetained = isRawTextRetained;
+	}
+
 	/**
 	 * Returns a new <code>JsonValue</code>.
 	 *
 	 * @param val
 	 *            a string representing the JSON object/array
+	 * @param retainRawText
+	 *            true iff {@code val} must be kept once parsed (and returned as is by {@link #printXML()} and {@link #getUnderlyingValue()}); if false, the JSON text is dropped after parsing,
+	 *            therefore {@link #printXML()} and {@link #getUnderlyingValue()} return the JSON serialized again from the parsed JSON (compact form), on demand.
+	 * @throws java.lang.IllegalArgumentException
+	 *             if format of {@code val} does not comply with the JSON specification (RFC 8259)
+	 */
+	public JsonValue(final String val, final boolean retainRawText) throws IllegalArgumentException
+	{
+		this(val, parse(val), retainRawText);
+	}
+
+	/**
+	 * Returns a new <code>JsonValue</code>. The raw JSON text is kept once parsed, unless the system property {@value #DROP_RAW_TEXT_SYSTEM_PROPERTY_NAME} is set to {@code true} (see
+	 * {@link #JsonValue(String, boolean)}).
+	 *
+	 * @param val
+	 *            a string representing the JSON object/array
 	 * @throws java.lang.IllegalArgumentException
 	 *             if format of {@code val} does not comply with the JSON specification (RFC 8259)
 	 */
 	public JsonValue(final String val) throws IllegalArgumentException
 	{
-		super(val);
-		try
+		this(val, IS_RAW_TEXT_RETAINED_BY_DEFAULT);
+	}
+
+	/**
+	 * Returns a new <code>JsonValue</code> from an already parsed JSON object/array, without raw JSON text: the JSON text ({@link #printXML()}, {@link #getUnderlyingValue()}) is serialized from the
+	 * parsed JSON (compact form) only when needed, like with {@link #JsonValue(String, boolean)} in "drop-raw-text" mode.
+	 *
+	 * @param json
+	 *            parsed JSON object (Map) or array (List), as returned by the JSON provider of {@link #JSON_PROCESSOR_CONFIGURATION}; must not be modified afterwards
+	 * @return JSON value
+	 * @throws java.lang.IllegalArgumentException
+	 *             if {@code json} is not a JSON object or array
+	 */
+	static JsonValue fromParsedJson(final Object json) throws IllegalArgumentException
+	{
+		checkObjectOrArray(json);
+		return new JsonValue(null, JsonPath.using(JSON_PROCESSOR_CONFIGURATION).parse(json), false);
+	}
+
+	/*
+	 * Converts a JSON value (as parsed by the JSON processor) to XDM, following the mapping of fn:parse-json (XPath 3.1): object -> map, array -> array, string -> xs:string, number -> xs:double,
+	 * boolean -> xs:boolean, null -> empty sequence
+	 */
+	private static XdmValue toXdmValue(final Object json)
+	{
+		if (json == null)
 		{
-			jsonPathReadCtx = JsonPath.using(JSON_PROCESSOR_CONFIGURATION).parse(val);
-		} catch (InvalidJsonException e) {
-			throw new IllegalArgumentException("Invalid JSON", e);
+			return XdmEmptySequence.getInstance();
 		}
 
-		final JsonProvider jsonProvider = JSON_PROCESSOR_CONFIGURATION.jsonProvider();
-		final Object json = jsonPathReadCtx.json();
-		Preconditions.checkArgument(jsonProvider.isArray(json) || jsonProvider.isMap(json), "Invalid input for JsonValue datatype: expected: JSON object (Map) or array (List); actual: " + json.getClass());
+		if (json instanceof Map<?, ?> jsonObject)
+		{
+			final Map<XdmAtomicValue, XdmValue> xdmMapEntries = new LinkedHashMap<>(jsonObject.size());
+			for (final Map.Entry<?, ?> jsonMember : jsonObject.entrySet())
+			{
+				xdmMapEntries.put(new XdmAtomicValue(jsonMember.getKey().toString()), toXdmValue(jsonMember.getValue()));
+			}
+
+			return new XdmMap(xdmMapEntries);
+		}
+
+		if (json instanceof List<?> jsonArray)
+		{
+			final List<XdmValue> xdmArrayMembers = new ArrayList<>(jsonArray.size());
+			for (final Object jsonItem : jsonArray)
+			{
+				xdmArrayMembers.add(toXdmValue(jsonItem));
+			}
+
+			return new XdmArray(xdmArrayMembers);
+		}
+
+		if (json instanceof String s)
+		{
+			return new XdmAtomicValue(s);
+		}
+
+		if (json instanceof Number n)
+		{
+			return new XdmAtomicValue(n.doubleValue());
+		}
+
+		if (json instanceof Boolean b)
+		{
+			return new XdmAtomicValue(b);
+		}
+
+		throw new IllegalArgumentException("Unsupported type of JSON value for conversion to XDM: " + json.getClass());
 	}
 
+	/**
+	 * Get the XDM representation of this JSON value, i.e. a XDM map (JSON object) or array (JSON array), built lazily from the parsed JSON (no reparsing) and cached
+	 *
+	 * @return XDM map or array
+	 */
 	@SuppressFBWarnings(value="EI_EXPOSE_REP", justification="According to Saxon documentation, an XdmValue is immutable.")
 	@Override
 	public XdmItem getXdmItem()
 	{
 		if(xdmItem == null) {
-			xdmItem = new XdmAtomicValue(value);
+			// JSON value is either an object or an array (enforced by the constructor), therefore converted to a XDM map or array, which are XdmItems
+			xdmItem = (XdmItem) toXdmValue(jsonPathReadCtx.json());
 		}
 		return xdmItem;
 	}
@@ -96,7 +307,173 @@ public final class JsonValue extends StringParseableValue<String>
 	@Override
 	public String printXML()
 	{
-		return this.value;
+		// raw text, or JSON text serialized on demand (memoized)
+		return this.value.toString();
+	}
+
+	/*
+	 * Rough estimates of the memory size (bytes) of Java objects on a 64-bit JVM with compressed references
+	 */
+	private static final int OBJECT_HEADER_SIZE = 16;
+	private static final int REF_SIZE = 4;
+	private static final int STRING_SHALLOW_SIZE = 24;
+	private static final int ARRAY_HEADER_SIZE = 16;
+	private static final int HASH_MAP_SHALLOW_SIZE = 48;
+	private static final int HASH_MAP_ENTRY_SIZE = 32;
+	private static final int ARRAY_LIST_SHALLOW_SIZE = 24;
+	private static final int BOXED_NUMBER_SIZE = 24;
+
+	private static long estimateSize(final String s)
+	{
+		// compact strings: 1 byte per char if Latin-1, else 2
+		final boolean isLatin1 = s.chars().allMatch(c -> c < 256);
+		return STRING_SHALLOW_SIZE + ARRAY_HEADER_SIZE + (long) s.length() * (isLatin1 ? 1 : 2);
+	}
+
+	private static long estimateSize(final Object json)
+	{
+		if (json == null || json instanceof Boolean)
+		{
+			// null or cached Boolean instance
+			return 0;
+		}
+
+		if (json instanceof String s)
+		{
+			return estimateSize(s);
+		}
+
+		if (json instanceof Map<?, ?> jsonObject)
+		{
+			// HashMap table (allocated lazily) capacity: next power of 2 >= size / 0.75 (load factor), 16 at least
+			final int tableCapacity = jsonObject.isEmpty() ? 0 : Math.max(16, Integer.highestOneBit((int) Math.ceil(jsonObject.size() / 0.75) - 1) << 1);
+			long size = HASH_MAP_SHALLOW_SIZE + ARRAY_HEADER_SIZE + (long) tableCapacity * REF_SIZE;
+			for (final Map.Entry<?, ?> jsonMember : jsonObject.entrySet())
+			{
+				size += HASH_MAP_ENTRY_SIZE + estimateSize(jsonMember.getKey()) + estimateSize(jsonMember.getValue());
+			}
+
+			return size;
+		}
+
+		if (json instanceof List<?> jsonArray)
+		{
+			long size = ARRAY_LIST_SHALLOW_SIZE + ARRAY_HEADER_SIZE + (long) jsonArray.size() * REF_SIZE;
+			for (final Object jsonItem : jsonArray)
+			{
+				size += estimateSize(jsonItem);
+			}
+
+			return size;
+		}
+
+		if (json instanceof BigInteger b)
+		{
+			return OBJECT_HEADER_SIZE + BOXED_NUMBER_SIZE + ARRAY_HEADER_SIZE + (b.bitLength() / 32 + 1) * 4L;
+		}
+
+		if (json instanceof BigDecimal d)
+		{
+			return OBJECT_HEADER_SIZE + BOXED_NUMBER_SIZE + estimateSize(d.unscaledValue());
+		}
+
+		// other Number
+		return BOXED_NUMBER_SIZE;
+	}
+
+	/**
+	 * Get an estimate of the memory size retained by this value (bytes), i.e. the size of the parsed JSON, and of the JSON text if retained (or serialized on demand). This is a rough estimate
+	 * assuming a 64-bit JVM with compressed object references. The XDM representation (created on demand by {@link #getXdmItem()}) and indexes are not taken into account.
+	 *
+	 * @return estimated retained size, in bytes
+	 */
+	public long getEstimatedRetainedSize()
+	{
+		if (estimatedRetainedSize < 0)
+		{
+			estimatedRetainedSize = estimateSize((Object) jsonPathReadCtx.json()) + (isRawTextRetained ? estimateSize(value.toString()) : 0);
+		}
+
+		// JSON text serialized on demand (raw text not retained), if any
+		final String jsonText = isRawTextRetained ? null : ((SerializedJsonText) value).getIfSerialized();
+		return jsonText == null ? estimatedRetainedSize : estimatedRetainedSize + estimateSize(jsonText);
+	}
+
+	/**
+	 * Get an index on this JSON value, built from the parsed JSON by {@code indexBuilder} if not built yet, i.e. on the first call with {@code indexKey}. The index is built once for all and kept as
+	 * long as this value, even if several threads request it concurrently (the other threads wait for the index to be built). The number of indexes per JSON value is bounded: once {@value
+	 * #MAX_INDEX_COUNT} indexes are built (or being built), no more index is built and null is returned for new keys.
+	 *
+	 * @param indexKey
+	 *            index key, identifying the indexed part of the JSON value and the index type
+	 * @param indexBuilder
+	 *            index builder, called with the parsed JSON (Map for JSON object, List for JSON array); the index must not be modified once built
+	 * @return the index, or null if there is no index for {@code indexKey} and the maximum number of indexes is reached
+	 */
+	@SuppressWarnings("unchecked")
+	<I> I getIndex(final Object indexKey, final java.util.function.Function<Object, I> indexBuilder)
+	{
+		Indexes currentIndexes = indexes;
+		if (currentIndexes == null)
+		{
+			final Indexes newIndexes = new Indexes();
+			currentIndexes = INDEXES_UPDATER.compareAndSet(this, null, newIndexes) ? newIndexes : indexes;
+		}
+
+		final CompletableFuture<Object> index = currentIndexes.byKey.get(indexKey);
+		if (index != null)
+		{
+			return (I) index.join();
+		}
+
+		// reserve a slot for the new index, unless the maximum number of indexes is reached
+		if (currentIndexes.reservedCount.getAndUpdate(count -> count < MAX_INDEX_COUNT ? count + 1 : count) >= MAX_INDEX_COUNT)
+		{
+			return null;
+		}
+
+		final CompletableFuture<Object> newIndex = new CompletableFuture<>();
+		final CompletableFuture<Object> concurrentIndex = currentIndexes.byKey.putIfAbsent(indexKey, newIndex);
+		if (concurrentIndex != null)
+		{
+			// built by another thread
+			currentIndexes.reservedCount.decrementAndGet();
+			return (I) concurrentIndex.join();
+		}
+
+		/*
+		 * Built outside of any lock, i.e. without blocking the threads getting other indexes (the threads getting the same index wait for newIndex to complete)
+		 */
+		final I builtIndex;
+		try
+		{
+			builtIndex = indexBuilder.apply(jsonPathReadCtx.json());
+		}
+		catch (final RuntimeException e)
+		{
+			// the next call will try again
+			currentIndexes.byKey.remove(indexKey, newIndex);
+			currentIndexes.reservedCount.decrementAndGet();
+			newIndex.completeExceptionally(e);
+			throw e;
+		}
+
+		newIndex.complete(builtIndex);
+		return builtIndex;
+	}
+
+	/**
+	 * Get an index on this JSON value if already built (see {@link #getIndex(Object, java.util.function.Function)}), without building it
+	 *
+	 * @param indexKey
+	 *            index key
+	 * @return the index, or null if not built (yet)
+	 */
+	Object getIndexIfBuilt(final Object indexKey)
+	{
+		final Indexes currentIndexes = indexes;
+		final CompletableFuture<Object> index = currentIndexes == null ? null : currentIndexes.byKey.get(indexKey);
+		return index == null ? null : index.getNow(null);
 	}
 
 	private transient volatile int hashCode = 0; // Effective Java - Item 9
@@ -107,8 +484,8 @@ public final class JsonValue extends StringParseableValue<String>
 	{
 		if (hashCode == 0)
 		{
-			// hash regardless of letter case
-			hashCode = Objects.hash(jsonPathReadCtx);
+			// consistent with equals(): hash of the parsed JSON
+			hashCode = jsonPathReadCtx.json().hashCode();
 		}
 
 		return hashCode;
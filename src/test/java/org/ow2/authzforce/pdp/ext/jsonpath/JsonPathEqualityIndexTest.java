@@ -0,0 +1,145 @@
+/*
+ * Copyright 2012-2024 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import com.jayway.jsonpath.JsonPath;
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.expression.ConstantPrimitiveAttributeValueExpression;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.test.StandardFunctionTest;
+
+/**
+ * Tests of JSONPath equality filters evaluated with an index on the JSON array, the expected results being the results of the JSONPath processor (without index). In the same package as
+ * {@link IndexableJsonPath} to check that the index is built and used.
+ */
+@RunWith(Parameterized.class)
+public class JsonPathEqualityIndexTest extends StandardFunctionTest
+{
+	private static final Function<?> TESTED_FUNCTION = new StringsFromJsonPathFunction();
+
+	private static final String JSON;
+
+	static
+	{
+		final StringBuilder json = new StringBuilder("{\"permissions\":[");
+		for (int i = 0; i < 100; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			json.append("{\"resourceId\":\"r").append(i % 40).append("\",\"actions\":[\"a").append(i).append("\",\"b").append(i).append("\"]");
+			if (i % 3 == 0)
+			{
+				json.append(",\"owner\":\"u").append(i).append('"');
+			}
+
+			json.append('}');
+		}
+
+		// no resourceId / null resourceId
+		json.append(",{\"actions\":[\"x\"]},{\"resourceId\":null,\"actions\":[\"y\"]}],\"numbered\":[");
+		for (int i = 0; i < 50; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			json.append("{\"id\":").append(i % 10).append(",\"name\":\"n").append(i).append("\"}");
+		}
+
+		JSON = json.append("],\"small\":[{\"id\":\"s1\",\"name\":\"small1\"},{\"id\":\"s2\",\"name\":\"small2\"}]}").toString();
+	}
+
+	/*
+	 * Same JSON value for all tests, so that indexes are built by the first tests and used by the next ones
+	 */
+	private static final JsonValue JSON_VALUE = new JsonValue(JSON);
+
+	private final String jsonPath;
+	private final boolean isIndexed;
+
+	public JsonPathEqualityIndexTest(final List<Value> inputs, final Value expectedResult, final boolean isIndexed)
+	{
+		super(TESTED_FUNCTION, null, inputs, expectedResult);
+		this.jsonPath = ((StringValue) inputs.get(1)).getUnderlyingValue();
+		this.isIndexed = isIndexed;
+	}
+
+	private static Object[] newTestParams(final String jsonPath, final boolean isIndexed)
+	{
+		final List<String> expectedStrings = JsonPath.read(JSON, jsonPath);
+		return new Object[] { Arrays.asList(JSON_VALUE, new StringValue(jsonPath)), Bags.newBag(StandardDatatypes.STRING, expectedStrings.stream().map(StringValue::new).toList()), isIndexed };
+	}
+
+	@Parameters(name = "{index}: {0}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        // index built
+		        newTestParams("$.permissions[?(@.resourceId == 'r7')].actions[*]", true),
+		        // index reused
+		        newTestParams("$.permissions[?(@.resourceId == 'r13')].actions[*]", true),
+		        newTestParams("$['permissions'][?(@['resourceId'] == \"r7\")].actions[0]", true),
+		        // rest of path missing in some matching elements
+		        newTestParams("$.permissions[?(@.resourceId == 'r0')].owner", true),
+		        // no match
+		        newTestParams("$.permissions[?(@.resourceId == 'unknown')].actions[*]", true),
+		        // not a string member (number): no index
+		        newTestParams("$.numbered[?(@.id == '5')].name", false),
+		        // small array: no index
+		        newTestParams("$.small[?(@.id == 's2')].name", false),
+		        // filter with a reference to the root: no index
+		        newTestParams("$.permissions[?(@.resourceId == 'r7')].actions[?(@ == $.permissions[7].actions[0])]", false));
+	}
+
+	@Test
+	public void testIndexUsage() throws IndeterminateEvaluationException
+	{
+		final IndexableJsonPath compiledJsonPath = IndexableJsonPath.compile(jsonPath);
+		TESTED_FUNCTION.newCall(Arrays.asList(new ConstantPrimitiveAttributeValueExpression<>(JsonValue.DATATYPE, JSON_VALUE), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue(jsonPath))))
+		        .evaluate(null, Optional.empty());
+		final Map<String, List<Object>> index = compiledJsonPath.getIndex(JSON_VALUE);
+		Assert.assertEquals("Index built by the function call", isIndexed, index != null);
+		if (isIndexed)
+		{
+			// the same index (built once) used by the next evaluation, returning the same results as the JSONPath processor
+			Assert.assertEquals(JsonPath.read(JSON, jsonPath), compiledJsonPath.read(JSON_VALUE));
+			Assert.assertSame(index, compiledJsonPath.getIndex(JSON_VALUE));
+		}
+	}
+
+}
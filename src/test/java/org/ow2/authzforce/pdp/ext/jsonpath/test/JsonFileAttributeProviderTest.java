@@ -0,0 +1,156 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.io.IOException;
+import java.math.BigInteger;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.ow2.authzforce.core.pdp.api.AttributeFqn;
+import org.ow2.authzforce.core.pdp.api.AttributeFqns;
+import org.ow2.authzforce.core.pdp.api.CloseableNamedAttributeProvider;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonFileAttributeProvider;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+import org.ow2.authzforce.pdp.ext.jsonpath.xmlns.JsonFileAttribute;
+import org.ow2.authzforce.pdp.ext.jsonpath.xmlns.JsonFileAttributeProviderDescriptor;
+
+/**
+ * Tests of {@link JsonFileAttributeProvider}
+ */
+public class JsonFileAttributeProviderTest
+{
+	private static final String CATEGORY = "urn:oasis:names:tc:xacml:3.0:attribute-category:environment";
+	private static final String ATTRIBUTE_ID = "urn:example:entitlements";
+	private static final AttributeFqn ATTRIBUTE_FQN = AttributeFqns.newInstance(CATEGORY, Optional.empty(), ATTRIBUTE_ID);
+
+	@Rule
+	public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+	private static CloseableNamedAttributeProvider newProvider(final Path jsonFile, final long reloadCheckIntervalMillis)
+	{
+		final JsonFileAttribute attribute = new JsonFileAttribute();
+		attribute.setCategory(CATEGORY);
+		attribute.setId(ATTRIBUTE_ID);
+		attribute.setFile(jsonFile.toString());
+		final JsonFileAttributeProviderDescriptor conf = new JsonFileAttributeProviderDescriptor();
+		conf.setId("test");
+		conf.getAttribute().add(attribute);
+		conf.setReloadCheckIntervalMillis(BigInteger.valueOf(reloadCheckIntervalMillis));
+		return new JsonFileAttributeProvider.Factory().getInstance(conf, s -> s).getInstance(null, null);
+	}
+
+	private static JsonValue getJsonValue(final CloseableNamedAttributeProvider provider) throws IndeterminateEvaluationException
+	{
+		return provider.get(ATTRIBUTE_FQN, JsonValue.DATATYPE, null, Optional.empty()).getSingleElement();
+	}
+
+	@Test
+	public void testGet() throws IOException, IndeterminateEvaluationException
+	{
+		final Path jsonFile = tmpFolder.newFile("entitlements.json").toPath();
+		Files.writeString(jsonFile, "{\"permissions\":[{\"resourceId\":\"r1\",\"actions\":[\"read\"]}]}", StandardCharsets.UTF_8);
+		try (CloseableNamedAttributeProvider provider = newProvider(jsonFile, 0); CloseableNamedAttributeProvider otherProvider = newProvider(jsonFile, 0))
+		{
+			Assert.assertEquals(1, provider.getProvidedAttributes().size());
+			final JsonValue jsonValue = getJsonValue(provider);
+			Assert.assertEquals(new JsonValue("{\"permissions\":[{\"resourceId\":\"r1\",\"actions\":[\"read\"]}]}"), jsonValue);
+			Assert.assertEquals(new JsonValue(jsonValue.printXML()), jsonValue);
+			// parsed once for all providers
+			Assert.assertSame(jsonValue, getJsonValue(otherProvider));
+		}
+	}
+
+	@Test
+	public void testCloseTwice() throws IOException, IndeterminateEvaluationException
+	{
+		final Path jsonFile = tmpFolder.newFile("entitlements.json").toPath();
+		Files.writeString(jsonFile, "{\"version\":1}", StandardCharsets.UTF_8);
+		try (CloseableNamedAttributeProvider provider = newProvider(jsonFile, 0))
+		{
+			final CloseableNamedAttributeProvider closedProvider = newProvider(jsonFile, 0);
+			closedProvider.close();
+			closedProvider.close();
+			// file still shared by the providers in use, not loaded again
+			try (CloseableNamedAttributeProvider otherProvider = newProvider(jsonFile, 0))
+			{
+				Assert.assertSame(getJsonValue(provider), getJsonValue(otherProvider));
+			}
+		}
+	}
+
+	@Test(expected = IndeterminateEvaluationException.class)
+	public void testGetWithInvalidDatatype() throws IOException, IndeterminateEvaluationException
+	{
+		final Path jsonFile = tmpFolder.newFile("entitlements.json").toPath();
+		Files.writeString(jsonFile, "[]", StandardCharsets.UTF_8);
+		try (CloseableNamedAttributeProvider provider = newProvider(jsonFile, 0))
+		{
+			provider.get(ATTRIBUTE_FQN, StandardDatatypes.STRING, null, Optional.empty());
+		}
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testInvalidJsonFile() throws IOException
+	{
+		final Path jsonFile = tmpFolder.newFile("entitlements.json").toPath();
+		Files.writeString(jsonFile, "{\"permissions\":", StandardCharsets.UTF_8);
+		newProvider(jsonFile, 0);
+	}
+
+	@Test
+	public void testReload() throws IOException, IndeterminateEvaluationException, InterruptedException
+	{
+		final Path jsonFile = tmpFolder.newFile("entitlements.json").toPath();
+		Files.writeString(jsonFile, "{\"version\":1}", StandardCharsets.UTF_8);
+		try (CloseableNamedAttributeProvider provider = newProvider(jsonFile, 1))
+		{
+			Assert.assertEquals(new JsonValue("{\"version\":1}"), getJsonValue(provider));
+
+			// invalid JSON: previous content still used
+			Files.writeString(jsonFile, "{\"version\":", StandardCharsets.UTF_8);
+			Files.setLastModifiedTime(jsonFile, FileTime.fromMillis(System.currentTimeMillis() + 10_000));
+			for (int i = 0; i < 10; i++)
+			{
+				Thread.sleep(10);
+				Assert.assertEquals(new JsonValue("{\"version\":1}"), getJsonValue(provider));
+			}
+
+			Files.writeString(jsonFile, "{\"version\":2}", StandardCharsets.UTF_8);
+			Files.setLastModifiedTime(jsonFile, FileTime.fromMillis(System.currentTimeMillis() + 20_000));
+			final JsonValue expectedJsonValue = new JsonValue("{\"version\":2}");
+			JsonValue jsonValue = getJsonValue(provider);
+			for (int i = 0; i < 500 && !jsonValue.equals(expectedJsonValue); i++)
+			{
+				Thread.sleep(10);
+				jsonValue = getJsonValue(provider);
+			}
+
+			Assert.assertEquals(expectedJsonValue, jsonValue);
+		}
+	}
+}
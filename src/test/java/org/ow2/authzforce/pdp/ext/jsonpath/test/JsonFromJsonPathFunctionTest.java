@@ -0,0 +1,89 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.expression.ConstantPrimitiveAttributeValueExpression;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.Bag;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.JsonFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+@RunWith(Parameterized.class)
+public class JsonFromJsonPathFunctionTest extends StandardFunctionTest
+{
+	private static final Function<?> TESTED_FUNCTION = new JsonFromJsonPathFunction();
+
+	private static final String JSON = "{\"org\":{\"name\":\"ACME\",\"departments\":[{\"id\":\"d1\",\"tags\":[\"a\"]},{\"id\":\"d2\"}],\"sites\":[\"paris\",\"nyc\"]}}";
+
+	public JsonFromJsonPathFunctionTest(final List<Value> inputs, final Value expectedResult)
+	{
+		super(TESTED_FUNCTION, null, inputs, expectedResult);
+	}
+
+	@Parameters(name = "{index}: {0}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.org.departments[*]")),
+		                Bags.newBag(JsonValue.DATATYPE, Arrays.asList(new JsonValue("{\"id\":\"d1\",\"tags\":[\"a\"]}"), new JsonValue("{\"id\":\"d2\"}"))) }, //
+		        // definite path to an array: the array itself
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.org.sites")), Bags.singleton(JsonValue.DATATYPE, new JsonValue("[\"paris\",\"nyc\"]")) }, //
+		        // values other than JSON objects/arrays ignored
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.org.*")),
+		                Bags.newBag(JsonValue.DATATYPE, Arrays.asList(new JsonValue("[{\"id\":\"d1\",\"tags\":[\"a\"]},{\"id\":\"d2\"}]"), new JsonValue("[\"paris\",\"nyc\"]"))) }, //
+		        // definite path to a string
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.org.name")), null }, //
+		        // path not found
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.org.employees")), null }, //
+		        // invalid path, not constant
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new NonConstantValue(new StringValue("$.org.departments[?(@.id == "))), null } //
+		);
+	}
+
+	@Test
+	public void testSubtreeSharedWithParent() throws IndeterminateEvaluationException
+	{
+		final JsonValue jsonVal = new JsonValue("{\"org\":{\"departments\":[{\"id\":\"d1\",\"members\":[\"alice\",\"bob\"]},{\"id\":\"d2\"}]}}");
+		final Bag<JsonValue> subJsonVals = new JsonFromJsonPathFunction()
+		        .newCall(Arrays.asList(new ConstantPrimitiveAttributeValueExpression<>(JsonValue.DATATYPE, jsonVal), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue("$.org.departments[*]"))))
+		        .evaluate(null, Optional.empty());
+		Assert.assertEquals(2, subJsonVals.size());
+		final JsonValue subJsonVal = subJsonVals.elements().iterator().next();
+		// no copy
+		Assert.assertSame(jsonVal.getJsonPathReadContext().read("$.org.departments[0]"), subJsonVal.getJsonPathReadContext().json());
+		// JSON text serialized on demand
+		Assert.assertEquals("{\"id\":\"d1\",\"members\":[\"alice\",\"bob\"]}", subJsonVal.getUnderlyingValue().toString());
+		Assert.assertEquals(new JsonValue("{\"id\":\"d1\",\"members\":[\"alice\",\"bob\"]}"), new JsonValue(subJsonVal.printXML()));
+	}
+
+}
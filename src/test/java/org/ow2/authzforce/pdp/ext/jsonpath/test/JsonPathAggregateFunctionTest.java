@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.ArbitrarilyBigInteger;
+import org.ow2.authzforce.core.pdp.api.value.DoubleValue;
+import org.ow2.authzforce.core.pdp.api.value.IntegerValue;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.DoubleAverageFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.DoubleMaxFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.DoubleSumFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.IntegerMaxFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.IntegerMinFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.IntegerSumFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+@RunWith(Parameterized.class)
+public class JsonPathAggregateFunctionTest extends StandardFunctionTest
+{
+	private static final String JSON = "{\"items\":[{\"price\":10.5,\"quantity\":2},{\"price\":4.25,\"quantity\":9223372036854775807},{\"price\":\"free\",\"quantity\":-3}],\"empty\":[]}";
+
+	public JsonPathAggregateFunctionTest(final Function<?> function, final List<Value> inputs, final Value expectedResult)
+	{
+		super(function, null, inputs, expectedResult);
+	}
+
+	@Parameters(name = "{index}: {0} {1}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        // invalid value ("free") ignored
+		        new Object[] { new DoubleSumFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[*].price")), new DoubleValue(14.75) }, //
+		        new Object[] { new DoubleMaxFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[*].price")), new DoubleValue(10.5) }, //
+		        new Object[] { new DoubleAverageFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[*].price")), new DoubleValue(7.375) }, //
+		        new Object[] { new DoubleSumFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.empty[*]")), new DoubleValue(0.0) }, //
+		        // no value to aggregate
+		        new Object[] { new DoubleMaxFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.empty[*]")), null }, //
+		        // single value of invalid type
+		        new Object[] { new DoubleSumFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[2].price")), null }, //
+		        // path not found
+		        new Object[] { new DoubleSumFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.orders[*].price")), null }, //
+
+		        // intermediate sum overflowing the long range
+		        new Object[] { new IntegerSumFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[*].quantity")), IntegerValue.valueOf(Long.MAX_VALUE - 1) }, //
+		        // sum overflowing the long range
+		        new Object[] { new IntegerSumFromJsonPathFunction(), Arrays.asList(new JsonValue("[9223372036854775807, 1]"), new StringValue("$[*]")),
+		                new IntegerValue(new ArbitrarilyBigInteger(BigInteger.valueOf(Long.MAX_VALUE).add(BigInteger.ONE))) }, //
+		        new Object[] { new IntegerMinFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[*].quantity")), IntegerValue.valueOf(-3) }, //
+		        new Object[] { new IntegerMaxFromJsonPathFunction(), Arrays.asList(new JsonValue("[2, 123456789012345678901234567890, -7]"), new StringValue("$[*]")),
+		                new IntegerValue(new ArbitrarilyBigInteger(new BigInteger("123456789012345678901234567890"))) }, //
+		        new Object[] { new IntegerMaxFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.items[0].quantity")), IntegerValue.valueOf(2) } //
+		);
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.Arrays;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.expression.ConstantPrimitiveAttributeValueExpression;
+import org.ow2.authzforce.core.pdp.api.func.FunctionCall;
+import org.ow2.authzforce.core.pdp.api.value.Bag;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.DoubleValue;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.DoubleMaxFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+import org.ow2.authzforce.xacml.identifiers.XacmlStatusCode;
+
+/**
+ * Tests of JSONPath function calls with constant arguments, evaluated once at initialization time
+ */
+public class JsonPathConstantFoldingTest
+{
+	private static final String JSON = "{\"roles\":[\"admin\",\"auditor\"],\"prices\":[]}";
+
+	@Test
+	public void testConstantResult() throws IndeterminateEvaluationException
+	{
+		final FunctionCall<Bag<StringValue>> call = new StringsFromJsonPathFunction().newCall(
+		        Arrays.asList(new ConstantPrimitiveAttributeValueExpression<>(JsonValue.DATATYPE, new JsonValue(JSON)), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue("$.roles[*]"))));
+		final Bag<StringValue> result = call.evaluate(null, Optional.empty());
+		Assert.assertEquals(Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("admin"), new StringValue("auditor"))), result);
+		// evaluated once
+		Assert.assertSame(result, call.evaluate(null, Optional.empty()));
+	}
+
+	@Test
+	public void testConstantIndeterminate()
+	{
+		final FunctionCall<DoubleValue> call = new DoubleMaxFromJsonPathFunction().newCall(
+		        Arrays.asList(new ConstantPrimitiveAttributeValueExpression<>(JsonValue.DATATYPE, new JsonValue(JSON)), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue("$.prices[*]"))));
+		IndeterminateEvaluationException firstError = null;
+		for (int i = 0; i < 2; i++)
+		{
+			try
+			{
+				call.evaluate(null, Optional.empty());
+				Assert.fail("Indeterminate expected (no value to aggregate)");
+			}
+			catch (final IndeterminateEvaluationException e)
+			{
+				Assert.assertEquals(XacmlStatusCode.PROCESSING_ERROR.value(), e.getStatus().getStatusCode().getValue());
+				if (firstError == null)
+				{
+					firstError = e;
+				}
+				else
+				{
+					Assert.assertEquals(firstError.getMessage(), e.getMessage());
+					// new exception on each evaluation, but evaluated once (same cause)
+					Assert.assertNotSame(firstError, e);
+					Assert.assertSame(firstError.getCause(), e.getCause());
+				}
+			}
+		}
+	}
+
+	@Test
+	public void testConstantIndeterminateBag() throws IndeterminateEvaluationException
+	{
+		// path not found
+		final FunctionCall<Bag<StringValue>> call = new StringsFromJsonPathFunction().newCall(
+		        Arrays.asList(new ConstantPrimitiveAttributeValueExpression<>(JsonValue.DATATYPE, new JsonValue(JSON)), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue("$.groups"))));
+		final Bag<StringValue> firstResult = call.evaluate(null, Optional.empty());
+		final Bag<StringValue> secondResult = call.evaluate(null, Optional.empty());
+		Assert.assertTrue(firstResult.isEmpty());
+		Assert.assertTrue(secondResult.isEmpty());
+		final IndeterminateEvaluationException firstError = firstResult.getReasonWhyEmpty();
+		final IndeterminateEvaluationException secondError = secondResult.getReasonWhyEmpty();
+		Assert.assertNotNull(firstError);
+		Assert.assertNotNull(secondError);
+		Assert.assertEquals(XacmlStatusCode.PROCESSING_ERROR.value(), secondError.getStatus().getStatusCode().getValue());
+		Assert.assertEquals(firstError.getMessage(), secondError.getMessage());
+		// new cause on each evaluation, but evaluated once (same constant cause)
+		Assert.assertNotSame(firstError, secondError);
+		Assert.assertSame(firstError.getCause(), secondError.getCause());
+	}
+}
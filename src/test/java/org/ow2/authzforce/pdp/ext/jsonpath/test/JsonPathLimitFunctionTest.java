@@ -0,0 +1,117 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.IntegerValue;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.IntegerFirstFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringFirstFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathLimitFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+@RunWith(Parameterized.class)
+public class JsonPathLimitFunctionTest extends StandardFunctionTest
+{
+	private static final String JSON = "{\"roles\":[\"admin\",\"auditor\",\"user\"],\"contacts\":[{\"id\":1,\"email\":42},{\"id\":2,\"email\":\"a@example.com\",\"backup\":{\"email\":\"b@example.com\"}},{\"id\":3,\"email\":\"c@example.com\"}]}";
+
+	private static final String INDEXED_JSON;
+
+	static
+	{
+		// array big enough to be indexed
+		final StringBuilder json = new StringBuilder("{\"permissions\":[");
+		for (int i = 0; i < 40; i++)
+		{
+			if (i > 0)
+			{
+				json.append(',');
+			}
+
+			json.append("{\"resourceId\":\"r").append(i % 4).append("\",\"action\":\"a").append(i).append("\"}");
+		}
+
+		INDEXED_JSON = json.append("]}").toString();
+	}
+
+	public JsonPathLimitFunctionTest(final Function<?> function, final List<Value> inputs, final Value expectedResult)
+	{
+		super(function, null, inputs, expectedResult);
+	}
+
+	@Parameters(name = "{index}: {0} {1}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        // first match of the expected type (number skipped)
+		        new Object[] { new StringFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$..email")), Bags.singleton(StandardDatatypes.STRING, new StringValue("a@example.com")) }, //
+		        new Object[] { new IntegerFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[*].id")), Bags.singleton(StandardDatatypes.INTEGER, IntegerValue.valueOf(1)) }, //
+		        // no match
+		        new Object[] { new StringFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$..phone")), Bags.empty(StandardDatatypes.STRING, null) }, //
+		        // definite path to an array
+		        new Object[] { new StringFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles")), Bags.singleton(StandardDatatypes.STRING, new StringValue("admin")) }, //
+		        // path not found
+		        new Object[] { new StringFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.groups")), null }, //
+		        // definite path to a value of another type (Indeterminate, like without limit)
+		        new Object[] { new StringFirstFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[0].id")), null }, //
+
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$..email"), IntegerValue.valueOf(2)),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("a@example.com"), new StringValue("b@example.com"))) }, //
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles[*]"), IntegerValue.valueOf(10)),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("admin"), new StringValue("auditor"), new StringValue("user"))) }, //
+		        // mixed-type array: the limit applies to the same valid values as without limit (number skipped)
+		        new Object[] { new StringsFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[*].email")),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("a@example.com"), new StringValue("c@example.com"))) }, //
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[*].email"), IntegerValue.valueOf(2)),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("a@example.com"), new StringValue("c@example.com"))) }, //
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[*].email"), IntegerValue.valueOf(1)),
+		                Bags.singleton(StandardDatatypes.STRING, new StringValue("a@example.com")) }, //
+		        // definite path to an array
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles"), IntegerValue.valueOf(2)),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("admin"), new StringValue("auditor"))) }, //
+		        // definite path to a value of another type (Indeterminate, like without limit)
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.contacts[0].id"), IntegerValue.valueOf(5)), null }, //
+		        // indexed equality filter
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(INDEXED_JSON), new StringValue("$.permissions[?(@.resourceId == 'r1')].action"), IntegerValue.valueOf(3)),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("a1"), new StringValue("a5"), new StringValue("a9"))) }, //
+		        // non-constant limit
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$..email"), new NonConstantValue(IntegerValue.valueOf(2))),
+		                Bags.newBag(StandardDatatypes.STRING, Arrays.asList(new StringValue("a@example.com"), new StringValue("b@example.com"))) }, //
+		        // invalid non-constant JSONPath (Indeterminate)
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new NonConstantValue(new StringValue("$.contacts[?(@.id == ")), IntegerValue.valueOf(2)), null }, //
+		        // invalid limit, constant (rejected at initialization time) or not (Indeterminate)
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles[*]"), IntegerValue.valueOf(0)), null }, //
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles[*]"), new NonConstantValue(IntegerValue.valueOf(0))), null }, //
+		        // invalid number of args
+		        new Object[] { new StringsFromJsonPathFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles[*]"), IntegerValue.valueOf(2)), null }, //
+		        new Object[] { new StringsFromJsonPathLimitFunction(), Arrays.asList(new JsonValue(JSON), new StringValue("$.roles[*]"), IntegerValue.valueOf(2), IntegerValue.valueOf(2)), null } //
+		);
+	}
+
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathOverBagFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+@RunWith(Parameterized.class)
+public class JsonPathOverBagFunctionTest extends StandardFunctionTest
+{
+	private static final Function<?> TESTED_FUNCTION = new StringsFromJsonPathOverBagFunction();
+
+	public JsonPathOverBagFunctionTest(final List<Value> inputs, final Value expectedResult)
+	{
+		super(TESTED_FUNCTION, null, inputs, expectedResult);
+	}
+
+	@Parameters(name = "{index}: {0}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        new Object[] { Arrays.asList(Bags.newBag(JsonValue.DATATYPE, List.of(new JsonValue("{\"id\":\"r1\",\"tags\":[\"a\",\"b\"]}"), new JsonValue("{\"id\":\"r2\"}"), new JsonValue("{\"id\":\"r3\",\"tags\":[\"b\"]}"))),
+		                new StringValue("$.tags[*]")), Bags.newBag(StandardDatatypes.STRING, List.of(new StringValue("a"), new StringValue("b"), new StringValue("b"))) }, //
+
+		        // JSONPath not matching some of the JSON values
+		        new Object[] { Arrays.asList(Bags.newBag(JsonValue.DATATYPE, List.of(new JsonValue("{\"id\":\"r1\"}"), new JsonValue("{\"name\":\"n2\"}"))), new StringValue("$.id")),
+		                Bags.singleton(StandardDatatypes.STRING, new StringValue("r1")) }, //
+
+		        new Object[] { Arrays.asList(JsonValue.DATATYPE.getEmptyBag(), new StringValue("$.id")), StandardDatatypes.STRING.getEmptyBag() } //
+		);
+	}
+
+}
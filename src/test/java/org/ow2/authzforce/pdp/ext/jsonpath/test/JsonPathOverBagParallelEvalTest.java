@@ -0,0 +1,105 @@
+/*
+ * Copyright 2012-2024 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.ow2.authzforce.core.pdp.api.IndeterminateEvaluationException;
+import org.ow2.authzforce.core.pdp.api.expression.ConstantExpression;
+import org.ow2.authzforce.core.pdp.api.expression.ConstantPrimitiveAttributeValueExpression;
+import org.ow2.authzforce.core.pdp.api.value.Bag;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathOverBagFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+/**
+ * Tests of the parallel evaluation of the *-from-json-path-over-bag functions (system property {@value #PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME}), the expected results being the results of
+ * the sequential evaluation
+ */
+public class JsonPathOverBagParallelEvalTest
+{
+	private static final String PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME = "org.ow2.authzforce.pdp.ext.jsonpath.parallelEvalMinBagSize";
+
+	private static final class JsonBagExpression extends ConstantExpression<Bag<JsonValue>>
+	{
+		private JsonBagExpression(final Bag<JsonValue> v)
+		{
+			super(JsonValue.DATATYPE.getBagDatatype(), v);
+		}
+	}
+
+	private static List<StringValue> evaluate(final StringsFromJsonPathOverBagFunction function, final Bag<JsonValue> jsonBag, final String jsonPath) throws IndeterminateEvaluationException
+	{
+		final Bag<StringValue> result = function.newCall(Arrays.asList(new JsonBagExpression(jsonBag), new ConstantPrimitiveAttributeValueExpression<>(StandardDatatypes.STRING, new StringValue(jsonPath))))
+		        .evaluate(null, Optional.empty());
+		final List<StringValue> values = new ArrayList<>(result.size());
+		result.forEach(values::add);
+		return values;
+	}
+
+	@Test
+	public void testSameResultsAsSequentialEval() throws IndeterminateEvaluationException
+	{
+		final StringsFromJsonPathOverBagFunction parallelFunction;
+		System.setProperty(PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME, "2");
+		try
+		{
+			parallelFunction = new StringsFromJsonPathOverBagFunction();
+		}
+		finally
+		{
+			System.clearProperty(PARALLEL_EVAL_MIN_BAG_SIZE_SYSTEM_PROPERTY_NAME);
+		}
+
+		final StringsFromJsonPathOverBagFunction sequentialFunction = new StringsFromJsonPathOverBagFunction();
+
+		// distinct values, so that the order of the results is preserved in the result bag
+		final List<JsonValue> jsonValues = new ArrayList<>();
+		final List<StringValue> expectedValues = new ArrayList<>();
+		for (int i = 0; i < 500; i++)
+		{
+			if (i % 7 == 0)
+			{
+				// JSONPath not matching this JSON value
+				jsonValues.add(new JsonValue("{\"id\":\"r" + i + "\"}"));
+				continue;
+			}
+
+			jsonValues.add(new JsonValue("{\"id\":\"r" + i + "\",\"tags\":[\"t" + i + "a\",\"t" + i + "b\"]}"));
+			expectedValues.add(new StringValue("t" + i + "a"));
+			expectedValues.add(new StringValue("t" + i + "b"));
+		}
+
+		final Bag<JsonValue> jsonBag = Bags.newBag(JsonValue.DATATYPE, jsonValues);
+		final List<StringValue> sequentialResults = evaluate(sequentialFunction, jsonBag, "$.tags[*]");
+		Assert.assertEquals(expectedValues, sequentialResults);
+		// same results in the same order
+		Assert.assertEquals(sequentialResults, evaluate(parallelFunction, jsonBag, "$.tags[*]"));
+
+		// bag smaller than the threshold: sequential evaluation
+		final Bag<JsonValue> singletonJsonBag = Bags.singleton(JsonValue.DATATYPE, jsonValues.get(1));
+		Assert.assertEquals(evaluate(sequentialFunction, singletonJsonBag, "$.tags[*]"), evaluate(parallelFunction, singletonJsonBag, "$.tags[*]"));
+	}
+}
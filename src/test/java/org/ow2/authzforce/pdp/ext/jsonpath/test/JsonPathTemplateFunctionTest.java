@@ -0,0 +1,80 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.core.pdp.api.value.Bags;
+import org.ow2.authzforce.core.pdp.api.value.StandardDatatypes;
+import org.ow2.authzforce.core.pdp.api.value.StringValue;
+import org.ow2.authzforce.core.pdp.api.value.Value;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonPathFunctions.StringsFromJsonPathTemplateFunction;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+@RunWith(Parameterized.class)
+public class JsonPathTemplateFunctionTest extends StandardFunctionTest
+{
+	private static final Function<?> TESTED_FUNCTION = new StringsFromJsonPathTemplateFunction();
+
+	private static final String JSON = "{\"resources\":[{\"id\":\"r1\",\"level\":1,\"actions\":[\"read\"]},{\"id\":\"r2\",\"level\":2,\"actions\":[\"read\",\"write\"]},{\"id\":\"it's\",\"level\":3,\"actions\":[\"delete\"]}]}";
+
+	public JsonPathTemplateFunctionTest(final List<Value> inputs, final Value expectedResult)
+	{
+		super(TESTED_FUNCTION, null, inputs, expectedResult);
+	}
+
+	@Parameters(name = "{index}: {0}")
+	public static Collection<Object[]> params()
+	{
+		return Arrays.asList(
+		        /*
+		         * Invalid args
+		         */
+		        // invalid number of parameter values
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.id == {rid})].actions[*]")), null },
+		        // invalid template
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.id == {rid}].actions[*]"), new StringValue("r1")), null },
+
+		        /*
+		         * Valid args
+		         */
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.id == {rid})].actions[*]"), new StringValue("r2")),
+		                Bags.newBag(StandardDatatypes.STRING, List.of(new StringValue("read"), new StringValue("write"))) }, //
+
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.id == {rid})].actions[*]"), new StringValue("it's")),
+		                Bags.singleton(StandardDatatypes.STRING, new StringValue("delete")) }, //
+
+		        // injection attempt: the value is handled as a string literal only
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.id == {rid})].actions[*]"), new StringValue("x' || @.id == 'r1")),
+		                StandardDatatypes.STRING.getEmptyBag() }, //
+
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[?(@.level >= {min:integer} && @.id != {rid})].id"), new StringValue("2"), new StringValue("r2")),
+		                Bags.singleton(StandardDatatypes.STRING, new StringValue("it's")) }, //
+
+		        // template without placeholder
+		        new Object[] { Arrays.asList(new JsonValue(JSON), new StringValue("$.resources[0].id")), Bags.singleton(StandardDatatypes.STRING, new StringValue("r1")) } //
+		);
+	}
+
+}
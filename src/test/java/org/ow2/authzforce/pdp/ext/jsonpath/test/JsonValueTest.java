@@ -0,0 +1,92 @@
+/*
+ * Copyright 2012-2026 THALES.
+ *
+ * This file is part of AuthzForce CE.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package org.ow2.authzforce.pdp.ext.jsonpath.test;
+
+import net.sf.saxon.s9api.XdmArray;
+import net.sf.saxon.s9api.XdmAtomicValue;
+import net.sf.saxon.s9api.XdmItem;
+import net.sf.saxon.s9api.XdmMap;
+import org.junit.Assert;
+import org.junit.Test;
+import org.ow2.authzforce.core.pdp.api.func.FirstOrderBagFunctions;
+import org.ow2.authzforce.core.pdp.api.func.Function;
+import org.ow2.authzforce.pdp.ext.jsonpath.JsonValue;
+
+/**
+ * Tests of {@link JsonValue} datatype-specific behavior
+ */
+public class JsonValueTest
+{
+	@Test
+	public void testXdmItemOfJsonObject()
+	{
+		final JsonValue jsonVal = new JsonValue("{\"name\":\"RESTRICTED\",\"level\":2,\"enabled\":true,\"tags\":[\"a\",\"b\"],\"parent\":null}");
+		final XdmItem xdmItem = jsonVal.getXdmItem();
+		Assert.assertTrue(xdmItem instanceof XdmMap);
+		final XdmMap xdmMap = (XdmMap) xdmItem;
+		Assert.assertEquals(new XdmAtomicValue("RESTRICTED"), xdmMap.get("name"));
+		Assert.assertEquals(new XdmAtomicValue(2.0), xdmMap.get("level"));
+		Assert.assertEquals(new XdmAtomicValue(true), xdmMap.get("enabled"));
+		Assert.assertEquals(2, ((XdmArray) xdmMap.get("tags")).arrayLength());
+		Assert.assertEquals(0, xdmMap.get("parent").size());
+		// cached
+		Assert.assertSame(xdmItem, jsonVal.getXdmItem());
+	}
+
+	@Test
+	public void testXdmItemOfJsonArray()
+	{
+		final XdmItem xdmItem = new JsonValue("[{\"id\":\"a\"},{\"id\":\"b\"}]").getXdmItem();
+		Assert.assertTrue(xdmItem instanceof XdmArray);
+		final XdmArray xdmArray = (XdmArray) xdmItem;
+		Assert.assertEquals(2, xdmArray.arrayLength());
+		Assert.assertEquals(new XdmAtomicValue("b"), ((XdmMap) xdmArray.get(1)).get("id"));
+	}
+
+	@Test
+	public void testRawTextDropped()
+	{
+		final String rawJson = "{ \"id\" : \"r1\",\n  \"tags\" : [ \"a\", \"b\" ] }";
+		final JsonValue retainingJsonVal = new JsonValue(rawJson, true);
+		final JsonValue droppingJsonVal = new JsonValue(rawJson, false);
+		Assert.assertEquals(rawJson, retainingJsonVal.printXML());
+		Assert.assertEquals(rawJson, retainingJsonVal.getUnderlyingValue());
+		// serialized again (compact)
+		final String serializedJson = droppingJsonVal.printXML();
+		Assert.assertEquals(retainingJsonVal, new JsonValue(serializedJson));
+		Assert.assertSame(serializedJson, droppingJsonVal.printXML());
+		Assert.assertEquals(serializedJson, droppingJsonVal.getUnderlyingValue().toString());
+		Assert.assertEquals(retainingJsonVal, droppingJsonVal);
+	}
+
+	@Test
+	public void testEstimatedRetainedSize()
+	{
+		final String rawJson = "{\"id\":\"r1\",\"tags\":[\"a\",\"b\"],\"level\":2}";
+		final long sizeWithRawText = new JsonValue(rawJson, true).getEstimatedRetainedSize();
+		final long sizeWithoutRawText = new JsonValue(rawJson, false).getEstimatedRetainedSize();
+		Assert.assertTrue(sizeWithoutRawText > 0);
+		Assert.assertTrue(sizeWithRawText > sizeWithoutRawText + rawJson.length());
+	}
+
+	@Test
+	public void testBagFunctionIds()
+	{
+		Assert.assertTrue(FirstOrderBagFunctions.getFunctions(JsonValue.DATATYPE).stream().anyMatch(function -> function.getId().equals(Function.AUTHZFORCE_EXTENSION_PREFIX + "json-one-and-only")));
+	}
+}
@@ -1,5 +1,5 @@
 /*
- * Copyright 2012-2024 THALES.
+ * Copyright 2012-2026 THALES.
  *
  * This file is part of AuthzForce CE.
  *
@@ -198,6 +198,40 @@ public abstract class StandardFunctionTest
 
 	}
 
+	private static final class NonConstantExpression<V extends AttributeValue> implements Expression<V>
+	{
+		private final Datatype<V> returnType;
+		private final V value;
+
+		private NonConstantExpression(final Datatype<V> returnType, final AttributeValue value)
+		{
+			this.returnType = returnType;
+			this.value = returnType.cast(value);
+		}
+
+		@Override
+		public Datatype<V> getReturnType() {
+			return returnType;
+		}
+
+		@Override
+		public V evaluate(final EvaluationContext individualDecisionContext, final Optional<EvaluationContext> mdpContext) {
+			return value;
+		}
+
+		@Override
+		public Optional<V> getValue() {
+			// value known at evaluation time only
+			return Optional.empty();
+		}
+
+		@Override
+		public String toString() {
+			return value.toString();
+		}
+
+	}
+
 	// private static <V extends Value> IndeterminateExpression<V> newIndeterminateExpression
 
 	private static List<Expression<?>> toExpressions(final FirstOrderFunction<?> subFunction, final List<Value> values) {
@@ -218,6 +252,9 @@ public abstract class StandardFunctionTest
 				 * or/and/n-o
 				 */
 				valExpr = nullVal.isBag() ? new IndeterminateExpression<>(nullVal.getDatatype().getBagDatatype()) : new IndeterminateExpression<>(nullVal.getDatatype());
+			} else if (val instanceof NonConstantValue nonConstantVal)
+			{
+				valExpr = new NonConstantExpression<>(FUNC_ARG_CLASS_TO_ATT_DATATYPE_MAP.get(nonConstantVal.getValue().getClass()), nonConstantVal.getValue());
 			} else if (val instanceof AttributeValue primVal)
 			{
 				valExpr = createValueExpression(FUNC_ARG_CLASS_TO_ATT_DATATYPE_MAP.get(primVal.getClass()), primVal);
@@ -315,6 +352,10 @@ public abstract class StandardFunctionTest
 			} else if (expectedResult != null)
 			{
 				Assert.assertEquals(toString, expectedResult, actualResult);
+			} else
+			{
+				// error expected: the only valid result is an Indeterminate bag (empty bag with the error as reason)
+				Assert.assertTrue(toString + ": expected Indeterminate but got " + actualResult, actualResult instanceof Bag<?> bag && bag.getReasonWhyEmpty() != null);
 			}
 		} catch (final IndeterminateEvaluationException e)
 		{